@@ -0,0 +1,33 @@
+package de.is24.maven.enforcer.rules;
+
+import org.objectweb.asm.ClassReader;
+
+
+enum AnalysisDepth {
+  // signatures and annotations of the classes, their fields and methods, method bodies are skipped
+  API(ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES),
+
+  // the types referenced by the instructions of method bodies too, debug information like local variables is skipped
+  BODY_REFS(ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES),
+
+  // the whole class file
+  FULL(ClassReader.SKIP_FRAMES);
+
+  private final int readerFlags;
+
+  AnalysisDepth(int readerFlags) {
+    this.readerFlags = readerFlags;
+  }
+
+  int getReaderFlags() {
+    return readerFlags;
+  }
+
+  boolean readsCode() {
+    return this != API;
+  }
+
+  boolean readsLocalVariables() {
+    return this == FULL;
+  }
+}
@@ -0,0 +1,87 @@
+package de.is24.maven.enforcer.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The threads of an execution, shared by all of its analyses. The calling thread runs every task no thread of the pool
+ * has started yet, so analyses started by the tasks of another analysis never wait for a thread of the exhausted pool.
+ */
+final class AnalysisExecutor {
+  private static final AtomicInteger POOLS = new AtomicInteger();
+
+  private final int threads;
+  private final ExecutorService executor;
+
+  AnalysisExecutor(int threads) {
+    this.threads = Math.max(1, threads);
+
+    final int pool = POOLS.incrementAndGet();
+    executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+      private final AtomicInteger thread = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        final Thread analyzerThread = new Thread(runnable, "itd-" + pool + "-" + thread.incrementAndGet());
+        analyzerThread.setDaemon(true);
+        return analyzerThread;
+      }
+    });
+  }
+
+  int getThreads() {
+    return threads;
+  }
+
+  // returns the completed tasks like ExecutorService.invokeAll()
+  <T> List<Future<T>> invokeAll(List<? extends Callable<T>> calls) throws InterruptedException {
+    final List<Future<T>> tasks = new ArrayList<Future<T>>(calls.size());
+    for (Callable<T> call : calls) {
+      final FutureTask<T> task = new FutureTask<T>(call);
+      tasks.add(task);
+      executor.execute(task);
+    }
+
+    // a task runs only once, whoever starts it first
+    for (Future<T> task : tasks) {
+      ((FutureTask<T>) task).run();
+    }
+
+    for (Future<T> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        // handled by the caller
+      }
+    }
+    return tasks;
+  }
+
+  // runs the calls on the executor, or on threads of their own if there is none
+  static <T> List<Future<T>> invokeAll(AnalysisExecutor executor, List<? extends Callable<T>> calls)
+    throws InterruptedException {
+    if (executor != null) {
+      return executor.invokeAll(calls);
+    }
+
+    final AnalysisExecutor callsExecutor = new AnalysisExecutor(calls.size());
+    try {
+      return callsExecutor.invokeAll(calls);
+    } finally {
+      callsExecutor.shutdown();
+    }
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
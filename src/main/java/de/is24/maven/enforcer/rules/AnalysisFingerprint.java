@@ -0,0 +1,128 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.artifact.Artifact;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+// identifies an analysis by everything its result depends on, files are identified by path, size and modification time,
+// directories by their path only, their contents are only compared if an earlier result may be reused
+final class AnalysisFingerprint {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final MessageDigest digest;
+  private final List<File> directories = new ArrayList<File>();
+  private String hexString;
+
+  AnalysisFingerprint() {
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not supported by the Java runtime!", e);
+    }
+  }
+
+  AnalysisFingerprint add(String value) {
+    try {
+      digest.update(String.valueOf(value).getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("UTF-8 is not supported by the Java runtime!", e);
+    }
+
+    // separates consecutive values
+    digest.update((byte) 0);
+    return this;
+  }
+
+  AnalysisFingerprint add(long value) {
+    return add(String.valueOf(value));
+  }
+
+  AnalysisFingerprint add(boolean value) {
+    return add(String.valueOf(value));
+  }
+
+  AnalysisFingerprint addArtifact(Artifact artifact) {
+    add(artifact.getId());
+    return addFile(artifact.getFile());
+  }
+
+  AnalysisFingerprint addArtifacts(Collection<Artifact> artifacts) {
+    // the order of the artifacts doesn't matter
+    final Map<String, Artifact> sortedArtifacts = new TreeMap<String, Artifact>();
+    for (Artifact artifact : artifacts) {
+      final File file = artifact.getFile();
+      sortedArtifacts.put(artifact.getId() + "|" + ((file == null) ? "" : file.getAbsolutePath()), artifact);
+    }
+
+    add(sortedArtifacts.size());
+    for (Artifact artifact : sortedArtifacts.values()) {
+      addArtifact(artifact);
+    }
+    return this;
+  }
+
+  private AnalysisFingerprint addFile(File file) {
+    if (file == null) {
+      return add("-");
+    }
+
+    if (!file.isDirectory()) {
+      return add(file.getAbsolutePath()).add(file.length()).add(file.lastModified());
+    }
+
+    directories.add(file);
+    return add(file.getAbsolutePath()).add("/");
+  }
+
+  // a directory changes its modification time if files are added, removed or renamed
+  boolean isUnchangedSince(long time) {
+    for (File directory : directories) {
+      if (!isUnchangedSince(directory, time)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isUnchangedSince(File file, long time) {
+    final long lastModified = file.lastModified();
+    if ((lastModified == 0) || (lastModified >= time)) {
+      return false;
+    }
+
+    final File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        if (!isUnchangedSince(child, time)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  String toHexString() {
+    if (hexString == null) {
+      hexString = toHexString(digest.digest());
+    }
+    return hexString;
+  }
+
+  static String toHexString(byte[] bytes) {
+    final char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+      hex[(i * 2) + 1] = HEX_DIGITS[bytes[i] & 0xf];
+    }
+    return new String(hex);
+  }
+}
@@ -0,0 +1,69 @@
+package de.is24.maven.enforcer.rules;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+// keeps the reports of the analyses of a build session, an analysis of unchanged inputs reuses the earlier report
+final class AnalysisResults {
+  private static final int MAX_RESULTS = 1024;
+
+  // file systems store modification times with a resolution of up to two seconds
+  private static final long MODIFICATION_TIME_RESOLUTION = 2000;
+
+  // one instance per build session, released together with the session
+  private static final Map<Object, AnalysisResults> SESSION_RESULTS = new WeakHashMap<Object, AnalysisResults>();
+
+  private final Map<String, Result> results = new LinkedHashMap<String, Result>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+      return size() > MAX_RESULTS;
+    }
+  };
+
+  static AnalysisResults forSession(Object session) {
+    synchronized (SESSION_RESULTS) {
+      AnalysisResults analysisResults = SESSION_RESULTS.get(session);
+      if (analysisResults == null) {
+        analysisResults = new AnalysisResults();
+        SESSION_RESULTS.put(session, analysisResults);
+      }
+      return analysisResults;
+    }
+  }
+
+  synchronized Result get(String fingerprint) {
+    return results.get(fingerprint);
+  }
+
+  synchronized void put(String fingerprint, Result result) {
+    results.put(fingerprint, result);
+  }
+
+  static final class Result {
+    private final long startTime;
+    private final String report;
+    private final String transitiveDependencies;
+
+    // the fingerprint of the transitive dependencies is only needed if the report lists their artifacts
+    Result(long startTime, String report, String transitiveDependencies) {
+      this.startTime = startTime;
+      this.report = report;
+      this.transitiveDependencies = transitiveDependencies;
+    }
+
+    String getReport() {
+      return report;
+    }
+
+    String getTransitiveDependencies() {
+      return transitiveDependencies;
+    }
+
+    // a file modified around the start of the analysis may have been analyzed in either state
+    boolean isValidFor(AnalysisFingerprint fingerprint) {
+      return fingerprint.isUnchangedSince(startTime - MODIFICATION_TIME_RESOLUTION);
+    }
+  }
+}
@@ -2,26 +2,91 @@ package de.is24.maven.enforcer.rules;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.logging.Log;
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
+import org.codehaus.plexus.util.IOUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 
 final class ArtifactRepositoryAnalyzer {
   private static final String CLASS_SUFFIX = ".class";
   private static final Pattern JAR_FILE_PATTERN = Pattern.compile("^.+\\.(jar|war|JAR|WAR)$");
 
+  // class entries not stored relative to the archive's root
+  private static final String VERSIONED_CLASSES_PREFIX = "META-INF/versions/";
+  private static final String MULTI_RELEASE_ATTRIBUTE = "Multi-Release";
+  private static final String WEB_APPLICATION_CLASSES_PREFIX = "WEB-INF/classes/";
+  private static final String BOOT_APPLICATION_CLASSES_PREFIX = "BOOT-INF/classes/";
+
+  // libraries bundled in web applications and Spring Boot applications
+  private static final String WEB_APPLICATION_LIBRARIES_PREFIX = "WEB-INF/lib/";
+  private static final String BOOT_APPLICATION_LIBRARIES_PREFIX = "BOOT-INF/lib/";
+  private static final String JAR_SUFFIX = ".jar";
+
+  // big archives are split into ranges of class entries analyzed by different workers
+  private static final int CLASS_ENTRIES_PER_TASK = 1000;
+
+  // analyze the biggest chunks first to keep the workers evenly loaded
+  private static final Comparator<AnalysisTask> HEAVIEST_TASK_FIRST = new Comparator<AnalysisTask>() {
+    @Override
+    public int compare(AnalysisTask task, AnalysisTask otherTask) {
+      final long weight = task.getWeight();
+      final long otherWeight = otherTask.getWeight();
+      return (weight < otherWeight) ? 1 : ((weight == otherWeight) ? 0 : -1);
+    }
+  };
+
   private final Log logger;
   private final boolean analyzeDependencies;
   private final ClassFilter filter;
 
+  // every thread reads all of its class files into the same growing buffer
+  private final ThreadLocal<ClassFileBuffer> classFileBuffers = new ThreadLocal<ClassFileBuffer>() {
+    @Override
+    protected ClassFileBuffer initialValue() {
+      return new ClassFileBuffer();
+    }
+  };
+
+  private int threads = 1;
+  private DependencyExtractor dependencyExtractor = DependencyExtractor.ASM;
+  private AnalysisDepth analysisDepth = AnalysisDepth.FULL;
+  private boolean verifyTypeNames;
+  private TypeIndexCache typeIndexCache;
+  private File classesSnapshotFile;
+  private int readerThreads;
+  private long readAheadMemory;
+  private int targetRelease;
+  private SharedTypeCache sharedTypeCache;
+  private Repository.DependencyListener dependencyListener;
+  private AnalysisExecutor executor;
+
   private ArtifactRepositoryAnalyzer(Log logger, boolean analyzeDependencies, ClassFilter filter) {
     this.logger = logger;
     this.analyzeDependencies = analyzeDependencies;
@@ -33,58 +98,523 @@ final class ArtifactRepositoryAnalyzer {
     return new ArtifactRepositoryAnalyzer(logger, analyzeDependencies, filter);
   }
 
+  ArtifactRepositoryAnalyzer withThreads(int threads) {
+    this.threads = Math.max(1, threads);
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withDependencyExtractor(DependencyExtractor dependencyExtractor) {
+    this.dependencyExtractor = dependencyExtractor;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withAnalysisDepth(AnalysisDepth analysisDepth) {
+    this.analysisDepth = analysisDepth;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withVerifiedTypeNames(boolean verifyTypeNames) {
+    this.verifyTypeNames = verifyTypeNames;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withTypeIndexCache(TypeIndexCache typeIndexCache) {
+    this.typeIndexCache = typeIndexCache;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withClassesSnapshot(File classesSnapshotFile) {
+    this.classesSnapshotFile = classesSnapshotFile;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withPipeline(int readerThreads, long readAheadMemory) {
+    this.readerThreads = readerThreads;
+    this.readAheadMemory = readAheadMemory;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withTargetRelease(int targetRelease) {
+    this.targetRelease = targetRelease;
+    return this;
+  }
+
+  ArtifactRepositoryAnalyzer withSharedTypeCache(SharedTypeCache sharedTypeCache) {
+    this.sharedTypeCache = sharedTypeCache;
+    return this;
+  }
+
+  // the threads of the execution, otherwise every parallel analysis starts threads of its own
+  ArtifactRepositoryAnalyzer withExecutor(AnalysisExecutor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  // the listener may abort the analysis by throwing a runtime exception
+  ArtifactRepositoryAnalyzer withDependencyListener(Repository.DependencyListener dependencyListener) {
+    this.dependencyListener = dependencyListener;
+    return this;
+  }
+
   Repository analyzeArtifacts(Iterable<Artifact> artifacts) {
-    final Repository repository = new Repository(filter);
+    final Repository repository = newRepository();
+    if (analyzeArtifacts(artifacts, repository, (threads > 1) || isPipelined())) {
+      typeIndexCache.evictLeastRecentlyUsed();
+    }
+    return repository;
+  }
+
+  // maps each of the types to the artifacts defining it, artifacts are analyzed concurrently until every type is found
+  Map<String, Set<Artifact>> findArtifactsDefiningTypes(List<Artifact> artifacts, Set<String> types) {
+    if (artifacts.isEmpty() || types.isEmpty()) {
+      return new HashMap<String, Set<Artifact>>();
+    }
+
+    final DefiningArtifactsHandler handler = new DefiningArtifactsHandler(artifacts, types);
+    final int analyzedArtifacts = analyzeEachArtifact(artifacts, handler);
+    final Map<String, Set<Artifact>> definingArtifacts = handler.getDefiningArtifacts();
 
-    for (Artifact artifact : artifacts) {
-      final File artifactFile = artifact.getFile();
-      if (artifactFile == null) {
-        logger.info("Artifact '" + artifact + "' has no associated file, skip it.");
-        continue;
+    if (logger.isDebugEnabled()) {
+      logger.debug("Found artifacts of " + definingArtifacts.size() + " of " + types.size() + " types in " +
+        analyzedArtifacts + " of " + artifacts.size() + " artifacts.");
+    }
+    return definingArtifacts;
+  }
+
+  // passes the types of every artifact to the spilled types, which keep them in sorted runs on disk
+  void spillTypesOfArtifacts(List<Artifact> artifacts, final SpilledTypes spilledTypes) {
+    if (artifacts.isEmpty()) {
+      return;
+    }
+
+    analyzeEachArtifact(artifacts, new ArtifactTypesHandler() {
+      @Override
+      public boolean isComplete(int index) {
+        return false;
       }
 
-      if (artifactFile.isDirectory()) {
-        analyzeClassesDirectory(repository, artifactFile);
-      } else {
-        final String absolutePath = artifactFile.getAbsolutePath();
-        if (JAR_FILE_PATTERN.matcher(absolutePath).matches()) {
-          analyzeJar(repository, artifactFile);
-        } else {
-          logger.info("Artifact '" + artifact + "' associated file '" + absolutePath + "', is skipped.");
+      @Override
+      public void handle(int index, Artifact artifact, Set<String> artifactTypes) {
+        spilledTypes.addAll(artifactTypes);
+      }
+    });
+  }
+
+  // removes the types of the artifacts from the pending types, stops analyzing artifacts once none is pending anymore
+  void removeTypesOfArtifacts(List<Artifact> artifacts, final Set<String> pendingTypes) {
+    if (artifacts.isEmpty() || pendingTypes.isEmpty()) {
+      return;
+    }
+
+    final int analyzedArtifacts = analyzeEachArtifact(artifacts, new ArtifactTypesHandler() {
+      @Override
+      public boolean isComplete(int index) {
+        synchronized (pendingTypes) {
+          return pendingTypes.isEmpty();
+        }
+      }
+
+      @Override
+      public void handle(int index, Artifact artifact, Set<String> artifactTypes) {
+        synchronized (pendingTypes) {
+          // iterate the smaller set, like DefiningArtifactsHandler
+          if (pendingTypes.size() < artifactTypes.size()) {
+            final Iterator<String> types = pendingTypes.iterator();
+            while (types.hasNext()) {
+              if (artifactTypes.contains(types.next())) {
+                types.remove();
+              }
+            }
+          } else {
+            for (String type : artifactTypes) {
+              pendingTypes.remove(type);
+            }
+          }
         }
       }
+    });
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(pendingTypes.size() + " types are still pending after analyzing " + analyzedArtifacts + " of " +
+        artifacts.size() + " artifacts.");
     }
-    return repository;
   }
 
-  private void analyzeJar(Repository repository, File jar) {
-    final ClassVisitor classVisitor = new ClassDependencyResolvingVisitor(repository, logger);
+  // analyzes the artifacts concurrently one by one until the handler is complete, returns the analyzed artifacts
+  private int analyzeEachArtifact(final List<Artifact> artifacts, final ArtifactTypesHandler handler) {
+    final int workers = Math.min(threads, artifacts.size());
+
+    // a single worker may analyze its artifact in parallel, e.g. the only direct dependency
+    final boolean inParallel = (workers == 1) && ((threads > 1) || isPipelined());
+    final AtomicInteger nextArtifact = new AtomicInteger();
+    final AtomicBoolean typeIndexCacheChanged = new AtomicBoolean();
+    final List<Callable<Integer>> workerCalls = new ArrayList<Callable<Integer>>(workers);
+    for (int i = 0; i < workers; i++) {
+      workerCalls.add(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          int analyzedArtifacts = 0;
+          int index = nextArtifact.getAndIncrement();
+          while ((index < artifacts.size()) && !handler.isComplete(index)) {
+            final Artifact artifact = artifacts.get(index);
+
+            // the types are only passed to the handler, they don't need ids of the execution's symbol table
+            final Repository repository = new Repository(filter, new SymbolTable());
+            if (analyzeArtifacts(Collections.singleton(artifact), repository, inParallel)) {
+              typeIndexCacheChanged.set(true);
+            }
+            handler.handle(index, artifact, repository.getTypes());
+            analyzedArtifacts++;
+            index = nextArtifact.getAndIncrement();
+          }
+          return analyzedArtifacts;
+        }
+      });
+    }
 
-    ZipFile zipFile = null;
     try {
-      zipFile = new ZipFile(jar.getAbsolutePath());
+      int analyzedArtifacts = 0;
+      for (Future<Integer> result : AnalysisExecutor.invokeAll(executor, workerCalls)) {
+        analyzedArtifacts += result.get();
+      }
+      return analyzedArtifacts;
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Unable to analyze artifacts!", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while analyzing artifacts!", e);
+    } finally {
+      if (typeIndexCacheChanged.get()) {
+        typeIndexCache.evictLeastRecentlyUsed();
+      }
+    }
+  }
 
-      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
-      while (entries.hasMoreElements()) {
-        final ZipEntry entry = entries.nextElement();
-        final String fileName = entry.getName();
-        if (fileName.endsWith(CLASS_SUFFIX)) {
-          if (logger.isDebugEnabled()) {
-            logger.debug("Analyze class '" + fileName + "' in JAR '" + jar + "'.");
+  // returns whether types have been stored in the type index cache
+  private boolean analyzeArtifacts(Iterable<Artifact> artifacts, Repository repository, boolean inParallel) {
+    final List<File> artifactFiles = new ArrayList<File>();
+    final Map<File, String> cacheKeys = new HashMap<File, String>();
+    final Map<File, String> sharedKeys = new HashMap<File, String>();
+    final Map<String, SharedTypeCache.Entry> sharedEntries = new HashMap<String, SharedTypeCache.Entry>();
+    final List<SharedTypeCache.Entry> awaitedEntries = new ArrayList<SharedTypeCache.Entry>();
+
+    try {
+      for (Artifact artifact : artifacts) {
+        final File artifactFile = artifact.getFile();
+        if (artifactFile == null) {
+          logger.info("Artifact '" + artifact + "' has no associated file, skip it.");
+          continue;
+        }
+
+        if (artifactFile.isDirectory()) {
+          if (classesSnapshotFile != null) {
+            analyzeClassesDirectoryIncrementally(repository, artifactFile);
+          } else {
+            artifactFiles.add(artifactFile);
           }
+        } else {
+          final String absolutePath = artifactFile.getAbsolutePath();
+          if (JAR_FILE_PATTERN.matcher(absolutePath).matches()) {
+            final String cacheKey = TypeIndexCache.makeKey(artifact, artifactFile, describeAnalysis());
+            if (sharedTypeCache != null) {
+              if (sharedEntries.containsKey(cacheKey)) {
+                // same JAR twice
+                continue;
+              }
 
-          final ClassReader classReader = new ClassReader(zipFile.getInputStream(entry));
+              final SharedTypeCache.Entry newEntry = new SharedTypeCache.Entry();
+              final SharedTypeCache.Entry sharedEntry = sharedTypeCache.putIfAbsent(cacheKey, newEntry);
+              if (sharedEntry != null) {
+                if (logger.isDebugEnabled()) {
+                  logger.debug("Take types of artifact '" + artifact + "' from shared type cache.");
+                }
+                awaitedEntries.add(sharedEntry);
+                continue;
+              }
+              sharedEntries.put(cacheKey, newEntry);
+              sharedKeys.put(artifactFile, cacheKey);
+            }
 
-          final String className = classReader.getClassName().replace('/', '.');
-          if (analyzeDependencies) {
-            if (filter.isConsideredType(className)) {
-              classReader.accept(classVisitor, ClassReader.SKIP_FRAMES);
+            // only released JARs are immutable
+            if ((typeIndexCache != null) && !artifact.isSnapshot()) {
+              final Repository indexedRepository = newRepository();
+              if (typeIndexCache.load(cacheKey, indexedRepository)) {
+                if (logger.isDebugEnabled()) {
+                  logger.debug("Read types of artifact '" + artifact + "' from type index cache.");
+                }
+                completeSharedEntry(sharedEntries, sharedKeys.get(artifactFile), indexedRepository);
+                repository.addAll(indexedRepository);
+                continue;
+              }
+              cacheKeys.put(artifactFile, cacheKey);
             }
+            artifactFiles.add(artifactFile);
           } else {
-            repository.addType(className);
+            logger.info("Artifact '" + artifact + "' associated file '" + absolutePath + "', is skipped.");
           }
         }
       }
+
+      if (!artifactFiles.isEmpty()) {
+        final Map<File, Repository> artifactRepositories = inParallel
+          ? analyzeArtifactFilesInParallel(artifactFiles) : analyzeArtifactFiles(artifactFiles);
+        for (File artifactFile : artifactFiles) {
+          Repository artifactRepository = artifactRepositories.get(artifactFile);
+          if (artifactRepository == null) {
+            // archive without any class entries
+            artifactRepository = newRepository();
+          }
+
+          final String cacheKey = cacheKeys.get(artifactFile);
+          if (cacheKey != null) {
+            typeIndexCache.store(cacheKey, artifactRepository);
+          }
+          completeSharedEntry(sharedEntries, sharedKeys.get(artifactFile), artifactRepository);
+          repository.addAll(artifactRepository);
+        }
+      }
+    } catch (RuntimeException e) {
+      failSharedEntries(sharedEntries, e);
+      throw e;
+    } catch (Error e) {
+      failSharedEntries(sharedEntries, new IllegalStateException("Unable to analyze artifacts!", e));
+      throw e;
+    }
+
+    // JARs analyzed by other modules at the same time are waited for last
+    for (SharedTypeCache.Entry awaitedEntry : awaitedEntries) {
+      awaitedEntry.addTo(repository);
+    }
+    return !cacheKeys.isEmpty();
+  }
+
+  private void failSharedEntries(Map<String, SharedTypeCache.Entry> sharedEntries, RuntimeException failure) {
+    // other modules waiting for these JARs must not wait forever
+    for (Map.Entry<String, SharedTypeCache.Entry> sharedEntry : sharedEntries.entrySet()) {
+      sharedTypeCache.fail(sharedEntry.getKey(), sharedEntry.getValue(), failure);
+    }
+  }
+
+  private void completeSharedEntry(Map<String, SharedTypeCache.Entry> sharedEntries, String cacheKey,
+                                   Repository artifactRepository) {
+    if (cacheKey != null) {
+      sharedTypeCache.complete(cacheKey, sharedEntries.remove(cacheKey), artifactRepository);
+    }
+  }
+
+  private boolean isPipelined() {
+    // types are taken from the central directory unless the class files are read anyway
+    return (readerThreads > 0) && (analyzeDependencies || verifyTypeNames);
+  }
+
+  private String describeAnalysis() {
+    final String analysis = analyzeDependencies ? ("dependencies-" + analysisDepth.name().toLowerCase())
+      : (verifyTypeNames ? "verified-types" : "types");
+    return analysis + "|" + targetRelease + "|" + filter.getFingerprint();
+  }
+
+  private Map<File, Repository> analyzeArtifactFiles(List<File> artifactFiles) {
+    final Map<File, Repository> artifactRepositories = new HashMap<File, Repository>();
+    for (File artifactFile : artifactFiles) {
+      final Repository artifactRepository = newRepository();
+      if (artifactFile.isDirectory()) {
+        analyzeClassesDirectory(artifactRepository, artifactFile);
+      } else {
+        analyzeJar(artifactRepository, artifactFile);
+      }
+      artifactRepositories.put(artifactFile, artifactRepository);
+    }
+    return artifactRepositories;
+  }
+
+  private Map<File, Repository> analyzeArtifactFilesInParallel(List<File> artifactFiles) {
+    final List<ZipFile> openedJars = new ArrayList<ZipFile>();
+    boolean analyzed = false;
+    try {
+      final List<AnalysisTask> tasks = new ArrayList<AnalysisTask>();
+      for (File artifactFile : artifactFiles) {
+        if (artifactFile.isDirectory()) {
+          splitClassesDirectory(tasks, artifactFile);
+        } else {
+          final ZipFile zipFile = openJar(artifactFile);
+          openedJars.add(zipFile);
+          splitJar(tasks, artifactFile, zipFile);
+        }
+      }
+
+      Collections.sort(tasks, HEAVIEST_TASK_FIRST);
+      final Map<File, Repository> artifactRepositories = isPipelined() ? runPipelined(tasks) : runInParallel(tasks);
+      analyzed = true;
+      return artifactRepositories;
+    } finally {
+      closeJars(openedJars, analyzed);
+    }
+  }
+
+  // every JAR is closed, a failure to close one only fails an analysis which hasn't failed already
+  private void closeJars(List<ZipFile> openedJars, boolean analyzed) {
+    IOException closeFailure = null;
+    File failedJar = null;
+    for (ZipFile openedJar : openedJars) {
+      try {
+        openedJar.close();
+      } catch (IOException e) {
+        if (analyzed && (closeFailure == null)) {
+          closeFailure = e;
+          failedJar = new File(openedJar.getName());
+        } else {
+          logger.warn("Unable to close artifact '" + openedJar.getName() + "'!", e);
+        }
+      }
+    }
+
+    if (closeFailure != null) {
+      throw logAndWrapIOException(closeFailure, failedJar, "artifact");
+    }
+  }
+
+  private void splitJar(List<AnalysisTask> tasks, File jar, ZipFile zipFile) {
+    final List<ZipEntry> classEntries = new ArrayList<ZipEntry>();
+    final List<ZipEntry> nestedJars = new ArrayList<ZipEntry>();
+    collectEntries(jar, zipFile, classEntries, nestedJars);
+    for (ZipEntry nestedJar : nestedJars) {
+      tasks.add(new NestedJarTask(jar, zipFile, nestedJar));
+    }
+
+    final int numberOfClassEntries = classEntries.size();
+    for (int from = 0; from < numberOfClassEntries; from += CLASS_ENTRIES_PER_TASK) {
+      final int to = Math.min(from + CLASS_ENTRIES_PER_TASK, numberOfClassEntries);
+      tasks.add(new JarEntriesTask(jar, zipFile, classEntries.subList(from, to)));
+    }
+
+    if (logger.isDebugEnabled() && (numberOfClassEntries > CLASS_ENTRIES_PER_TASK)) {
+      logger.debug("Split " + numberOfClassEntries + " classes of JAR '" + jar + "' into ranges of " +
+        CLASS_ENTRIES_PER_TASK + " classes.");
+    }
+  }
+
+  private void splitClassesDirectory(List<AnalysisTask> tasks, File classesDirectory) {
+    final List<File> classFiles = ClassFileWalker.listClassFiles(classesDirectory, threads, executor);
+
+    final int numberOfClassFiles = classFiles.size();
+    for (int from = 0; from < numberOfClassFiles; from += CLASS_ENTRIES_PER_TASK) {
+      final int to = Math.min(from + CLASS_ENTRIES_PER_TASK, numberOfClassFiles);
+      tasks.add(new ClassFilesTask(classesDirectory, classFiles.subList(from, to)));
+    }
+
+    if (logger.isDebugEnabled() && (numberOfClassFiles > CLASS_ENTRIES_PER_TASK)) {
+      logger.debug("Split " + numberOfClassFiles + " classes of directory '" + classesDirectory +
+        "' into ranges of " + CLASS_ENTRIES_PER_TASK + " classes.");
+    }
+  }
+
+  private Map<File, Repository> runInParallel(final List<AnalysisTask> tasks) {
+    final int workers = Math.min(threads, tasks.size());
+    if (logger.isDebugEnabled()) {
+      logger.debug("Analyze " + tasks.size() + " chunks of artifacts using " + workers + " threads.");
+    }
+
+    // every worker fills its own repositories with its own class file readers, all of them are merged afterwards
+    final AtomicInteger nextTask = new AtomicInteger();
+    final List<Callable<WorkerRepositories>> workerCalls = new ArrayList<Callable<WorkerRepositories>>(workers);
+    for (int i = 0; i < workers; i++) {
+      workerCalls.add(new Callable<WorkerRepositories>() {
+        @Override
+        public WorkerRepositories call() {
+          final WorkerRepositories workerRepositories = new WorkerRepositories();
+          int index = nextTask.getAndIncrement();
+          while (index < tasks.size()) {
+            workerRepositories.analyze(tasks.get(index));
+            index = nextTask.getAndIncrement();
+          }
+          return workerRepositories;
+        }
+      });
+    }
+
+    try {
+      final List<WorkerRepositories> results = new ArrayList<WorkerRepositories>(workers);
+      for (Future<WorkerRepositories> result : AnalysisExecutor.invokeAll(executor, workerCalls)) {
+        results.add(result.get());
+      }
+      return mergeWorkerRepositories(results);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Unable to analyze artifacts!", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while analyzing artifacts!", e);
+    }
+  }
+
+  private Map<File, Repository> runPipelined(List<AnalysisTask> tasks) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Analyze " + tasks.size() + " chunks of artifacts using " + readerThreads +
+        " reader threads and " + threads + " parser threads.");
+    }
+
+    final ClassFilePipeline pipeline = new ClassFilePipeline(readerThreads, readAheadMemory);
+    final List<WorkerRepositories> results = pipeline.run(executor,
+      tasks,
+      threads,
+      new ClassFilePipeline.ParserFactory<WorkerRepositories>() {
+        @Override
+        public WorkerRepositories newParser() {
+          return new WorkerRepositories();
+        }
+      });
+
+    logger.info(pipeline.describeMetrics());
+    return mergeWorkerRepositories(results);
+  }
+
+  private static Map<File, Repository> mergeWorkerRepositories(List<WorkerRepositories> results) {
+    // ranges of the same archive may have been analyzed by different workers
+    final Map<File, Repository> artifactRepositories = new HashMap<File, Repository>();
+    for (WorkerRepositories result : results) {
+      for (Map.Entry<File, Repository> workerRepository : result.repositories.entrySet()) {
+        final Repository artifactRepository = artifactRepositories.get(workerRepository.getKey());
+        if (artifactRepository == null) {
+          artifactRepositories.put(workerRepository.getKey(), workerRepository.getValue());
+        } else {
+          artifactRepository.addAll(workerRepository.getValue());
+        }
+      }
+    }
+    return artifactRepositories;
+  }
+
+  private ZipFile openJar(File jar) {
+    try {
+      return new ZipFile(jar.getAbsolutePath());
+    } catch (IOException e) {
+      throw logAndWrapIOException(e, jar, "artifact");
+    }
+  }
+
+  private void analyzeJar(Repository repository, File jar) {
+    final ClassFileReader classFileReader = newClassFileReader(repository);
+
+    ZipFile zipFile = null;
+    try {
+      zipFile = new ZipFile(jar.getAbsolutePath());
+
+      final List<ZipEntry> classEntries = new ArrayList<ZipEntry>();
+      final List<ZipEntry> nestedJars = new ArrayList<ZipEntry>();
+      collectEntries(jar, zipFile, classEntries, nestedJars);
+      for (ZipEntry classEntry : classEntries) {
+        analyzeJarEntry(repository, classFileReader, jar, zipFile, classEntry);
+      }
+      for (ZipEntry nestedJar : nestedJars) {
+        analyzeNestedJar(repository, classFileReader, jar, zipFile, nestedJar);
+      }
     } catch (IOException e) {
       throw logAndWrapIOException(e, jar, "artifact");
     } finally {
@@ -98,6 +628,202 @@ final class ArtifactRepositoryAnalyzer {
     }
   }
 
+  private void collectEntries(File jar, ZipFile zipFile, List<ZipEntry> classEntries, List<ZipEntry> nestedJars) {
+    final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      final ZipEntry entry = entries.nextElement();
+      if (entry.getName().endsWith(CLASS_SUFFIX)) {
+        classEntries.add(entry);
+      } else if (isNestedJar(entry.getName())) {
+        nestedJars.add(entry);
+      }
+    }
+
+    if (targetRelease > 0) {
+      selectReleaseEntries(jar, zipFile, classEntries);
+    }
+  }
+
+  // keep the most specific entry per class like a Java runtime of the target release, skip all other versions
+  private void selectReleaseEntries(File jar, ZipFile zipFile, List<ZipEntry> classEntries) {
+    final boolean multiRelease;
+    try {
+      multiRelease = isMultiReleaseJar(zipFile);
+    } catch (IOException e) {
+      throw logAndWrapIOException(e, jar, "artifact");
+    }
+
+    final Map<String, ZipEntry> selectedEntries = new LinkedHashMap<String, ZipEntry>();
+    final Map<String, Integer> selectedVersions = new HashMap<String, Integer>();
+    for (ZipEntry classEntry : classEntries) {
+      final String entryName = classEntry.getName();
+      String path = entryName;
+      int version = 0;
+      if (entryName.startsWith(VERSIONED_CLASSES_PREFIX)) {
+        version = readVersion(entryName);
+        if (!multiRelease || (version < 0) || (version > targetRelease)) {
+          continue;
+        }
+        path = entryName.substring(entryName.indexOf('/', VERSIONED_CLASSES_PREFIX.length()) + 1);
+      }
+
+      final Integer selectedVersion = selectedVersions.get(path);
+      if ((selectedVersion == null) || (version > selectedVersion)) {
+        selectedEntries.put(path, classEntry);
+        selectedVersions.put(path, version);
+      }
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Selected " + selectedEntries.size() + " of " + classEntries.size() + " class entries of JAR '" +
+        jar + "' for release " + targetRelease + ".");
+    }
+    classEntries.clear();
+    classEntries.addAll(selectedEntries.values());
+  }
+
+  private static boolean isMultiReleaseJar(ZipFile zipFile) throws IOException {
+    final ZipEntry manifestEntry = zipFile.getEntry(JarFile.MANIFEST_NAME);
+    if (manifestEntry == null) {
+      return false;
+    }
+
+    final InputStream manifestStream = zipFile.getInputStream(manifestEntry);
+    try {
+      final Manifest manifest = new Manifest(manifestStream);
+      return "true".equalsIgnoreCase(manifest.getMainAttributes().getValue(MULTI_RELEASE_ATTRIBUTE));
+    } finally {
+      manifestStream.close();
+    }
+  }
+
+  // returns the N of META-INF/versions/N/ or -1 for invalid versions
+  private static int readVersion(String entryName) {
+    final int end = entryName.indexOf('/', VERSIONED_CLASSES_PREFIX.length());
+    try {
+      return (end < 0) ? -1 : Integer.parseInt(entryName.substring(VERSIONED_CLASSES_PREFIX.length(), end));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private void analyzeJarEntry(Repository repository, ClassFileReader classFileReader, File jar, ZipFile zipFile,
+                               ZipEntry entry) throws IOException {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Analyze class '" + entry.getName() + "' in JAR '" + jar + "'.");
+    }
+
+    if (analyzeDependencies || verifyTypeNames) {
+      final ClassFileBuffer classFile = classFileBuffers.get();
+      classFile.read(zipFile.getInputStream(entry), entry.getSize());
+      analyzeJarClassFile(repository, classFileReader, jar.toString(), entry.getName(), classFile);
+    } else {
+      // the type's name is taken from the central directory
+      repository.addType(readTypeName(entry.getName()));
+    }
+  }
+
+  private void analyzeJarClassFile(Repository repository, ClassFileReader classFileReader, String jar,
+                                   String entryName, ClassFileBuffer classFile) {
+    if (analyzeDependencies) {
+      analyzeClass(repository, classFileReader, classFile);
+    } else {
+      verifyJarClassFile(repository, classFileReader, jar, entryName, classFile);
+    }
+  }
+
+  // the class file is only read to verify the name taken from the central directory
+  private void verifyJarClassFile(Repository repository, ClassFileReader classFileReader, String jar,
+                                  String entryName, ClassFileBuffer classFile) {
+    final String typeName = readTypeName(entryName);
+    final String className = classFileReader.readClassName(classFile.getBytes(), classFile.getLength());
+    if (!className.equals(typeName)) {
+      logger.warn("Class '" + className + "' is stored as '" + entryName + "' in JAR '" + jar + "'.");
+    }
+    repository.addType(className);
+  }
+
+  // the libraries bundled with an application are its direct dependencies, only their types are collected
+  private void analyzeNestedJar(Repository repository, ClassFileReader classFileReader, File jar, ZipFile zipFile,
+                                ZipEntry entry) throws IOException {
+    final String nestedJar = jar + "!/" + entry.getName();
+    if (logger.isDebugEnabled()) {
+      logger.debug("Analyze nested JAR '" + nestedJar + "'.");
+    }
+
+    // nested archives are streamed, their central directory is not available
+    final ZipInputStream nestedEntries = new ZipInputStream(zipFile.getInputStream(entry));
+    try {
+      ZipEntry nestedEntry = nestedEntries.getNextEntry();
+      while (nestedEntry != null) {
+        final String nestedEntryName = nestedEntry.getName();
+        if (nestedEntryName.endsWith(CLASS_SUFFIX) && isReleaseEntry(nestedEntryName)) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Analyze class '" + nestedEntryName + "' in JAR '" + nestedJar + "'.");
+          }
+
+          if (verifyTypeNames) {
+            final ClassFileBuffer classFile = classFileBuffers.get();
+            classFile.read(notClosing(nestedEntries), nestedEntry.getSize());
+            verifyJarClassFile(repository, classFileReader, nestedJar, nestedEntryName, classFile);
+          } else {
+            repository.addType(readTypeName(nestedEntryName));
+          }
+        }
+        nestedEntry = nestedEntries.getNextEntry();
+      }
+    } finally {
+      nestedEntries.close();
+    }
+  }
+
+  // streamed archives have no central directory to select the most specific entry from, skip newer versions only
+  private boolean isReleaseEntry(String entryName) {
+    if ((targetRelease <= 0) || !entryName.startsWith(VERSIONED_CLASSES_PREFIX)) {
+      return true;
+    }
+
+    final int version = readVersion(entryName);
+    return (version >= 0) && (version <= targetRelease);
+  }
+
+  private static boolean isNestedJar(String entryName) {
+    return (entryName.startsWith(WEB_APPLICATION_LIBRARIES_PREFIX) ||
+        entryName.startsWith(BOOT_APPLICATION_LIBRARIES_PREFIX)) && entryName.endsWith(JAR_SUFFIX);
+  }
+
+  // the class file buffer closes the streams it has read, the nested archive's stream has to stay open
+  private static InputStream notClosing(ZipInputStream nestedEntries) {
+    return new FilterInputStream(nestedEntries) {
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  private static String readTypeName(String entryName) {
+    int start = 0;
+    if (entryName.startsWith(VERSIONED_CLASSES_PREFIX)) {
+      start = entryName.indexOf('/', VERSIONED_CLASSES_PREFIX.length()) + 1;
+    } else if (entryName.startsWith(WEB_APPLICATION_CLASSES_PREFIX)) {
+      start = WEB_APPLICATION_CLASSES_PREFIX.length();
+    } else if (entryName.startsWith(BOOT_APPLICATION_CLASSES_PREFIX)) {
+      start = BOOT_APPLICATION_CLASSES_PREFIX.length();
+    }
+    return entryName.substring(start, entryName.length() - CLASS_SUFFIX.length()).replace('/', '.');
+  }
+
+  private void analyzeClass(Repository repository, ClassFileReader classFileReader, ClassFileBuffer classFile) {
+    final String className = classFileReader.readClassName(classFile.getBytes(), classFile.getLength());
+    if (analyzeDependencies) {
+      if (filter.isConsideredType(className)) {
+        classFileReader.readDependencies();
+      }
+    } else {
+      repository.addType(className);
+    }
+  }
+
   private IllegalStateException logAndWrapIOException(IOException e, File file, final String description) {
     final String error = "Unable to read class(es) from " + description + " '" + file + "'.";
     logger.error(error, e);
@@ -105,46 +831,361 @@ final class ArtifactRepositoryAnalyzer {
   }
 
   private void analyzeClassesDirectory(Repository repository, File classesDirectory) {
-    final ClassVisitor classVisitor = new ClassDependencyResolvingVisitor(repository, logger);
-    analyzeClassesDirectory(repository, classesDirectory, classVisitor);
+    final ClassFileReader classFileReader = newClassFileReader(repository);
+    for (File classFile : ClassFileWalker.listClassFiles(classesDirectory, threads, executor)) {
+      analyzeClassFile(repository, classFileReader, classFile);
+    }
+  }
+
+  private void analyzeClassFile(Repository repository, ClassFileReader classFileReader, File file) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Analyze class '" + file.getPath() + "'.");
+    }
+
+    try {
+      final ClassFileBuffer classFile = classFileBuffers.get();
+      classFile.read(new FileInputStream(file), file.length());
+      analyzeClass(repository, classFileReader, classFile);
+    } catch (IOException e) {
+      throw logAndWrapIOException(e, file, "file");
+    }
   }
 
-  private void analyzeClassesDirectory(Repository repository, File directory, ClassVisitor classVisitor) {
-    if (directory.isDirectory()) {
-      final String[] entries = directory.list();
-      for (String entry : entries) {
-        analyzeClassesDirectory(repository, new File(directory, entry), classVisitor);
+  private void analyzeClassesDirectoryIncrementally(Repository repository, File classesDirectory) {
+    final String description = classesDirectory.getAbsolutePath() + "|" + describeAnalysis();
+    final ClassesDirectorySnapshot previousSnapshot = ClassesDirectorySnapshot.read(classesSnapshotFile,
+      description,
+      logger);
+    final ClassesDirectorySnapshot snapshot = new ClassesDirectorySnapshot(description);
+
+    final List<File> classFiles = ClassFileWalker.listClassFiles(classesDirectory, threads, executor);
+
+    // only added and changed class files are analyzed, each one into the emptied class repository
+    final Repository classRepository = newRepository();
+    final ClassFileReader classFileReader = newClassFileReader(classRepository);
+    final int rootPathLength = classesDirectory.getPath().length() + 1;
+    int analyzedClassFiles = 0;
+    for (File classFile : classFiles) {
+      final String path = classFile.getPath().substring(rootPathLength);
+      final long lastModified = classFile.lastModified();
+      final long size = classFile.length();
+
+      ClassesDirectorySnapshot.ClassFileState state = previousSnapshot.getUnchanged(path, lastModified, size);
+      if (state == null) {
+        analyzeClassFile(classRepository, classFileReader, classFile);
+        state = new ClassesDirectorySnapshot.ClassFileState(lastModified,
+          size,
+          new ArrayList<String>(classRepository.getTypes()),
+          new ArrayList<String>(classRepository.getDependencies()));
+        classRepository.clear();
+        analyzedClassFiles++;
       }
+      snapshot.put(path, state);
+      state.addTo(repository);
+    }
+
+    final int removedClassFiles = previousSnapshot.countClassFilesMissingIn(snapshot);
+    logger.info("Analyzed " + analyzedClassFiles + " of " + classFiles.size() + " class files in '" +
+      classesDirectory + "', " + removedClassFiles + " class files have been removed since the last build.");
+
+    if ((analyzedClassFiles > 0) || (removedClassFiles > 0)) {
+      snapshot.write(classesSnapshotFile, logger);
     }
+  }
+
+  private ClassFileReader newClassFileReader(Repository repository) {
+    return dependencyExtractor.newClassFileReader(repository, logger, analysisDepth);
+  }
+
+  // every repository of an artifact notifies the listener, the first one adding a dependency does so
+  private Repository newRepository() {
+    return new Repository(filter, filter.getSymbolTable(), dependencyListener);
+  }
+
+  private interface ArtifactTypesHandler {
+    // whether the artifact at the index isn't needed anymore, neither are the ones after it
+    boolean isComplete(int index);
+
+    void handle(int index, Artifact artifact, Set<String> artifactTypes);
+  }
+
+  // the defining artifacts don't depend on the timing of the threads: like one by one, the artifacts up to the first
+  // one by which every type has been found are analyzed, the types of artifacts analyzed beyond it are dropped
+  private static final class DefiningArtifactsHandler implements ArtifactTypesHandler {
+    private final List<Artifact> artifacts;
+    private final Set<String> types;
+
+    // the searched types of each handled artifact, in the order of the artifacts
+    private final List<Set<String>> definedTypes;
+    private final Set<String> foundTypes = new HashSet<String>();
+    private int handledArtifacts;
+    private volatile int lastArtifact = Integer.MAX_VALUE;
+
+    private DefiningArtifactsHandler(List<Artifact> artifacts, Set<String> types) {
+      this.artifacts = artifacts;
+      this.types = types;
+      this.definedTypes = new ArrayList<Set<String>>(Collections.<Set<String>>nCopies(artifacts.size(), null));
+    }
+
+    @Override
+    public boolean isComplete(int index) {
+      return index > lastArtifact;
+    }
+
+    @Override
+    public synchronized void handle(int index, Artifact artifact, Set<String> artifactTypes) {
+      // iterate the smaller set, artifacts usually define far more types than are searched for
+      final boolean fewerTypes = types.size() < artifactTypes.size();
+      final Set<String> searchedTypes = new HashSet<String>();
+      for (String type : fewerTypes ? types : artifactTypes) {
+        if (fewerTypes ? artifactTypes.contains(type) : types.contains(type)) {
+          searchedTypes.add(type);
+        }
+      }
+      definedTypes.set(index, searchedTypes);
 
-    final String path = directory.getPath();
-    if (path.endsWith(CLASS_SUFFIX)) {
+      // the artifacts handled without a gap from the first one tell the last artifact needed
+      while ((lastArtifact == Integer.MAX_VALUE) && (handledArtifacts < definedTypes.size()) &&
+          (definedTypes.get(handledArtifacts) != null)) {
+        foundTypes.addAll(definedTypes.get(handledArtifacts));
+        if (foundTypes.size() >= types.size()) {
+          lastArtifact = handledArtifacts;
+        }
+        handledArtifacts++;
+      }
+    }
+
+    private synchronized Map<String, Set<Artifact>> getDefiningArtifacts() {
+      final Map<String, Set<Artifact>> definingArtifacts = new HashMap<String, Set<Artifact>>();
+      final int artifactCount = (lastArtifact == Integer.MAX_VALUE) ? definedTypes.size() : (lastArtifact + 1);
+      for (int i = 0; i < artifactCount; i++) {
+        final Set<String> artifactTypes = definedTypes.get(i);
+        if (artifactTypes == null) {
+          continue;
+        }
+        for (String type : artifactTypes) {
+          Set<Artifact> typeArtifacts = definingArtifacts.get(type);
+          if (typeArtifacts == null) {
+            typeArtifacts = new LinkedHashSet<Artifact>();
+            definingArtifacts.put(type, typeArtifacts);
+          }
+          typeArtifacts.add(artifacts.get(i));
+        }
+      }
+      return definingArtifacts;
+    }
+  }
+
+  private interface AnalysisTask extends ClassFilePipeline.Source {
+    File getArtifactFile();
+
+    long getWeight();
+
+    void analyze(Repository repository, ClassFileReader classFileReader);
+
+    // analyze a class file read by read(ClassFilePipeline)
+    void parse(Repository repository, ClassFileReader classFileReader, String name, ClassFileBuffer classFile);
+  }
+
+  // repositories and class file readers of one worker, one of each per analyzed artifact file
+  private final class WorkerRepositories implements ClassFilePipeline.Parser {
+    private final Map<File, Repository> repositories = new HashMap<File, Repository>();
+    private final Map<File, ClassFileReader> classFileReaders = new HashMap<File, ClassFileReader>();
+
+    private void analyze(AnalysisTask task) {
+      final File artifactFile = task.getArtifactFile();
+      task.analyze(getRepository(artifactFile), classFileReaders.get(artifactFile));
+    }
+
+    @Override
+    public void parse(ClassFilePipeline.Source source, String name, ClassFileBuffer classFile) {
+      final AnalysisTask task = (AnalysisTask) source;
+      final File artifactFile = task.getArtifactFile();
+      task.parse(getRepository(artifactFile), classFileReaders.get(artifactFile), name, classFile);
+    }
+
+    private Repository getRepository(File artifactFile) {
+      Repository repository = repositories.get(artifactFile);
+      if (repository == null) {
+        repository = newRepository();
+        repositories.put(artifactFile, repository);
+        classFileReaders.put(artifactFile, newClassFileReader(repository));
+      }
+      return repository;
+    }
+  }
+
+  private final class ClassFilesTask implements AnalysisTask {
+    private final File classesDirectory;
+    private final List<File> classFiles;
+
+    private ClassFilesTask(File classesDirectory, List<File> classFiles) {
+      this.classesDirectory = classesDirectory;
+      this.classFiles = classFiles;
+    }
+
+    @Override
+    public File getArtifactFile() {
+      return classesDirectory;
+    }
+
+    @Override
+    public long getWeight() {
+      // directories hold the artifact's own classes, start with them
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public void analyze(Repository repository, ClassFileReader classFileReader) {
+      for (File classFile : classFiles) {
+        analyzeClassFile(repository, classFileReader, classFile);
+      }
+    }
+
+    @Override
+    public void read(ClassFilePipeline pipeline) {
+      for (File classFile : classFiles) {
+        try {
+          pipeline.submit(this, classFile.getPath(), new FileInputStream(classFile), classFile.length());
+        } catch (IOException e) {
+          throw logAndWrapIOException(e, classFile, "file");
+        }
+      }
+    }
+
+    @Override
+    public void parse(Repository repository, ClassFileReader classFileReader, String name,
+                      ClassFileBuffer classFile) {
       if (logger.isDebugEnabled()) {
-        logger.debug("Analyze class '" + path + "'.");
+        logger.debug("Analyze class '" + name + "'.");
       }
+      analyzeClass(repository, classFileReader, classFile);
+    }
+  }
+
+  private final class JarEntriesTask implements AnalysisTask {
+    private final File jar;
+    private final ZipFile zipFile;
+    private final List<ZipEntry> classEntries;
+    private final long weight;
+
+    private JarEntriesTask(File jar, ZipFile zipFile, List<ZipEntry> classEntries) {
+      this.jar = jar;
+      this.zipFile = zipFile;
+      this.classEntries = classEntries;
 
-      FileInputStream classFileStream = null;
+      long compressedSize = 0;
+      for (ZipEntry classEntry : classEntries) {
+        compressedSize += Math.max(0, classEntry.getCompressedSize());
+      }
+      weight = compressedSize;
+    }
+
+    @Override
+    public File getArtifactFile() {
+      return jar;
+    }
+
+    @Override
+    public long getWeight() {
+      return weight;
+    }
+
+    @Override
+    public void analyze(Repository repository, ClassFileReader classFileReader) {
       try {
-        classFileStream = new FileInputStream(directory);
-        final ClassReader classReader = new ClassReader(classFileStream);
-        String className = classReader.getClassName().replace('/', '.');
-        if (analyzeDependencies) {
-          if (filter.isConsideredType(className)) {
-            classReader.accept(classVisitor, ClassReader.SKIP_FRAMES);
-          }
-        } else {
-          repository.addType(className);
+        for (ZipEntry classEntry : classEntries) {
+          analyzeJarEntry(repository, classFileReader, jar, zipFile, classEntry);
         }
       } catch (IOException e) {
-        throw logAndWrapIOException(e, directory, "file");
-      } finally {
-        try {
-          if (classFileStream != null) {
-            classFileStream.close();
+        throw logAndWrapIOException(e, jar, "artifact");
+      }
+    }
+
+    @Override
+    public void read(ClassFilePipeline pipeline) {
+      try {
+        for (ZipEntry classEntry : classEntries) {
+          pipeline.submit(this, classEntry.getName(), zipFile.getInputStream(classEntry), classEntry.getSize());
+        }
+      } catch (IOException e) {
+        throw logAndWrapIOException(e, jar, "artifact");
+      }
+    }
+
+    @Override
+    public void parse(Repository repository, ClassFileReader classFileReader, String name,
+                      ClassFileBuffer classFile) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Analyze class '" + name + "' in JAR '" + jar + "'.");
+      }
+      analyzeJarClassFile(repository, classFileReader, jar.toString(), name, classFile);
+    }
+  }
+
+  private final class NestedJarTask implements AnalysisTask {
+    private final File jar;
+    private final ZipFile zipFile;
+    private final ZipEntry entry;
+    private final String nestedJar;
+
+    private NestedJarTask(File jar, ZipFile zipFile, ZipEntry entry) {
+      this.jar = jar;
+      this.zipFile = zipFile;
+      this.entry = entry;
+      nestedJar = jar + "!/" + entry.getName();
+    }
+
+    @Override
+    public File getArtifactFile() {
+      return jar;
+    }
+
+    @Override
+    public long getWeight() {
+      return Math.max(0, entry.getCompressedSize());
+    }
+
+    @Override
+    public void analyze(Repository repository, ClassFileReader classFileReader) {
+      try {
+        analyzeNestedJar(repository, classFileReader, jar, zipFile, entry);
+      } catch (IOException e) {
+        throw logAndWrapIOException(e, jar, "artifact");
+      }
+    }
+
+    @Override
+    public void read(ClassFilePipeline pipeline) {
+      ZipInputStream nestedEntries = null;
+      try {
+        nestedEntries = new ZipInputStream(zipFile.getInputStream(entry));
+        ZipEntry nestedEntry = nestedEntries.getNextEntry();
+        while (nestedEntry != null) {
+          if (nestedEntry.getName().endsWith(CLASS_SUFFIX) && isReleaseEntry(nestedEntry.getName())) {
+            pipeline.submit(this, nestedEntry.getName(), notClosing(nestedEntries), nestedEntry.getSize());
           }
-        } catch (IOException e) {
-          throw logAndWrapIOException(e, directory, "file");
+          nestedEntry = nestedEntries.getNextEntry();
         }
+      } catch (IOException e) {
+        throw logAndWrapIOException(e, jar, "artifact");
+      } finally {
+        IOUtil.close(nestedEntries);
+      }
+    }
+
+    @Override
+    public void parse(Repository repository, ClassFileReader classFileReader, String name,
+                      ClassFileBuffer classFile) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Analyze class '" + name + "' in JAR '" + nestedJar + "'.");
+      }
+
+      // like analyzeNestedJar(), the name is only verified if requested
+      if (verifyTypeNames) {
+        verifyJarClassFile(repository, classFileReader, nestedJar, name, classFile);
+      } else {
+        repository.addType(readTypeName(name));
       }
     }
   }
@@ -0,0 +1,29 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.plugin.logging.Log;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+
+
+final class AsmClassFileReader implements ClassFileReader {
+  private final ClassVisitor classVisitor;
+  private final int readerFlags;
+
+  private ClassReader classReader;
+
+  AsmClassFileReader(Repository repository, Log logger, AnalysisDepth analysisDepth) {
+    classVisitor = new ClassDependencyResolvingVisitor(repository, logger);
+    readerFlags = analysisDepth.getReaderFlags();
+  }
+
+  @Override
+  public String readClassName(byte[] classFile, int length) {
+    classReader = new ClassReader(classFile, 0, length);
+    return classReader.getClassName().replace('/', '.');
+  }
+
+  @Override
+  public void readDependencies() {
+    classReader.accept(classVisitor, readerFlags);
+  }
+}
@@ -7,10 +7,12 @@ import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.objectweb.asm.signature.SignatureReader;
 import org.objectweb.asm.signature.SignatureVisitor;
 
+import java.util.HashSet;
+import java.util.Set;
+
 
 final class ClassDependencyResolvingVisitor extends ClassVisitor {
   private final Repository repository;
@@ -20,6 +22,10 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
   private final MethodVisitor methodVisitor = new ClassDependencyMethodVisitor();
   private final SignatureVisitor signatureVisitor = new ClassDependencySignatureVisitor();
 
+  // a class references the same types over and over again, they are filtered only once per class
+  private final Set<String> classDependencies = new HashSet<String>();
+  private final TypeNameCache typeNames = new TypeNameCache();
+
   ClassDependencyResolvingVisitor(Repository repository, Log logger) {
     super(Opcodes.ASM5);
     this.repository = repository;
@@ -28,18 +34,20 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
   @Override
   public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-    final String className = Types.readInternalTypeName(name);
+    classDependencies.clear();
+
+    final String className = typeNames.readInternalTypeName(name);
     logger.debug("Add new type '" + className + "'.");
     repository.addType(className);
 
     if (superName != null) {
-      final String superTypeName = Types.readInternalTypeName(superName);
+      final String superTypeName = typeNames.readInternalTypeName(superName);
       addDependency("super type", superTypeName);
     }
 
     if (interfaces != null) {
       for (String iface : interfaces) {
-        final String interfaceType = Types.readInternalTypeName(iface);
+        final String interfaceType = typeNames.readInternalTypeName(iface);
         addDependency("interface type", interfaceType);
       }
     }
@@ -49,7 +57,7 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
   @Override
   public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
-    final String fieldType = Types.readTypeDescription(desc);
+    final String fieldType = typeNames.readTypeDescription(desc);
     addDependency("field type", fieldType);
 
     // add initial field value if any
@@ -69,27 +77,17 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
   @Override
   public void visitInnerClass(String name, String outerName, String innerName, int access) {
-    final String innerClassName = Types.readInternalTypeName(name);
+    final String innerClassName = typeNames.readInternalTypeName(name);
     addDependency("inner class", innerClassName);
   }
 
   @Override
   public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
-    final Type[] argumentTypes = Type.getArgumentTypes(desc);
-
-    for (Type argumentType : argumentTypes) {
-      final String parameterTypeName = Types.readType(argumentType);
-      addDependency("annotation's method parameter type",
-        parameterTypeName);
-    }
-
-    final Type returnType = Type.getReturnType(desc);
-    final String returnTypeName = Types.readType(returnType);
-    addDependency("annotation's method return type", returnTypeName);
+    addMethodDescription("annotation's method parameter type", "annotation's method return type", desc);
 
     if (exceptions != null) {
       for (String exception : exceptions) {
-        final String exceptionName = Types.readInternalTypeName(exception);
+        final String exceptionName = typeNames.readInternalTypeName(exception);
         addDependency("exception type", exceptionName);
       }
     }
@@ -100,19 +98,37 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
   }
 
   private AnnotationVisitor delegateToAnnotationVisitor(String desc) {
-    final String annotationType = Types.readTypeDescription(desc);
+    final String annotationType = typeNames.readTypeDescription(desc);
     addDependency("annotation", annotationType);
 
     return annotationVisitor;
   }
 
   private void addDependency(String typeDescription, String typeName) {
+    if (!classDependencies.add(typeName)) {
+      return;
+    }
     if (logger.isDebugEnabled()) {
       logger.debug("Add " + typeDescription + " '" + typeName + "' as dependency.");
     }
     repository.addDependency(typeName);
   }
 
+  // walks the method descriptor in place, array types are reported by their element type
+  private void addMethodDescription(String parameterDescription, String returnDescription, String desc) {
+    String typeDescription = parameterDescription;
+    int index = 1;
+    while (index < desc.length()) {
+      if (desc.charAt(index) == ')') {
+        typeDescription = returnDescription;
+        index++;
+      } else {
+        addDependency(typeDescription, typeNames.readDescriptionType(desc, index));
+        index = TypeNameCache.skipDescriptionType(desc, index);
+      }
+    }
+  }
+
   private void processSignature(String signature) {
     if (signature != null) {
       final SignatureReader signatureReader = new SignatureReader(
@@ -128,7 +144,7 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
     @Override
     public void visitClassType(String name) {
-      final String classType = Types.readInternalTypeName(name);
+      final String classType = typeNames.readInternalTypeName(name);
       addDependency("class type", classType);
     }
   }
@@ -146,13 +162,13 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
     @Override
     public void visitEnum(String name, String desc, String value) {
-      final String enumType = Types.readTypeDescription(desc);
+      final String enumType = typeNames.readTypeDescription(desc);
       addDependency("annotation's enum type", enumType);
     }
 
     @Override
     public AnnotationVisitor visitAnnotation(String name, String desc) {
-      final String annotationType = Types.readTypeDescription(desc);
+      final String annotationType = typeNames.readTypeDescription(desc);
       addDependency("annotation's annotation type", annotationType);
 
       return this;
@@ -197,31 +213,22 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
     @Override
     public void visitTypeInsn(int opcode, String type) {
-      final String typeName = Types.readInternalTypeName(type);
+      final String typeName = typeNames.readInternalTypeName(type);
       addDependency("Type instruction type", typeName);
     }
 
     @Override
     public void visitFieldInsn(int opcode, String owner, String name, String desc) {
-      final String fieldType = Types.readTypeDescription(desc);
+      final String fieldType = typeNames.readTypeDescription(desc);
       addDependency("field instruction type", fieldType);
     }
 
     @Override
     public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
-      final String ownerType = Types.readInternalTypeName(owner);
+      final String ownerType = typeNames.readInternalTypeName(owner);
       addDependency("method owner", ownerType);
 
-      final Type[] argumentTypes = Type.getArgumentTypes(desc);
-
-      for (Type argumentType : argumentTypes) {
-        final String parameterTypeName = Types.readType(argumentType);
-        addDependency("method parameter type", parameterTypeName);
-      }
-
-      final Type returnType = Type.getReturnType(desc);
-      final String returnTypeName = Types.readType(returnType);
-      addDependency("method return type", returnTypeName);
+      addMethodDescription("method parameter type", "method return type", desc);
     }
 
     @Override
@@ -232,21 +239,21 @@ final class ClassDependencyResolvingVisitor extends ClassVisitor {
 
     @Override
     public void visitMultiANewArrayInsn(String desc, int dims) {
-      final String arrayType = Types.readTypeDescription(desc);
+      final String arrayType = typeNames.readTypeDescription(desc);
       addDependency("array's type", arrayType);
     }
 
     @Override
     public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
       if (type != null) {
-        final String exceptionType = Types.readInternalTypeName(type);
+        final String exceptionType = typeNames.readInternalTypeName(type);
         addDependency("exception type", exceptionType);
       }
     }
 
     @Override
     public void visitLocalVariable(String name, String desc, String signature, Label start, Label end, int index) {
-      final String localVariableType = Types.readTypeDescription(desc);
+      final String localVariableType = typeNames.readTypeDescription(desc);
       addDependency("local variable", localVariableType);
 
       processSignature(signature);
@@ -0,0 +1,53 @@
+package de.is24.maven.enforcer.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+
+// growing buffer reused for many class files, only the first length bytes are valid
+final class ClassFileBuffer {
+  private byte[] bytes = new byte[8192];
+  private int length;
+
+  byte[] getBytes() {
+    return bytes;
+  }
+
+  int getLength() {
+    return length;
+  }
+
+  int getCapacity() {
+    return bytes.length;
+  }
+
+  void read(InputStream classFileStream, long size) throws IOException {
+    try {
+      if (size > bytes.length) {
+        bytes = new byte[(int) size];
+      }
+
+      length = 0;
+      while (true) {
+        if (length == bytes.length) {
+          // the size may be unknown or wrong, grow the buffer until the stream ends
+          final int next = classFileStream.read();
+          if (next < 0) {
+            return;
+          }
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+          bytes[length++] = (byte) next;
+        }
+
+        final int bytesRead = classFileStream.read(bytes, length, bytes.length - length);
+        if (bytesRead < 0) {
+          return;
+        }
+        length += bytesRead;
+      }
+    } finally {
+      classFileStream.close();
+    }
+  }
+}
@@ -0,0 +1,324 @@
+package de.is24.maven.enforcer.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+
+// reader threads read and inflate class files into pooled buffers, parser threads take them from a bounded queue, the
+// memory limit covers the capacity of every buffer, queued or pooled
+final class ClassFilePipeline {
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final int KILOBYTE = 1024;
+
+  // memory reserved for class files of unknown size, e.g. entries of streamed archives
+  private static final int UNKNOWN_SIZE = 64 * KILOBYTE;
+
+  private static final long POLL_MILLISECONDS = 100;
+
+  private static final Item END_OF_CLASS_FILES = new Item(null, null, null);
+
+  private final int readerThreads;
+  private final int memoryPermits;
+  private final Semaphore memory;
+  private final BlockingQueue<Item> queue = new ArrayBlockingQueue<Item>(QUEUE_CAPACITY);
+  private final ConcurrentLinkedQueue<ClassFileBuffer> bufferPool = new ConcurrentLinkedQueue<ClassFileBuffer>();
+
+  private final AtomicInteger classFiles = new AtomicInteger();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private final AtomicLong queueDepthSum = new AtomicLong();
+  private final AtomicLong readerStallNanos = new AtomicLong();
+  private final AtomicLong parserStallNanos = new AtomicLong();
+
+  private volatile boolean aborted;
+
+  ClassFilePipeline(int readerThreads, long memoryLimit) {
+    this.readerThreads = Math.max(1, readerThreads);
+    memoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryLimit / KILOBYTE));
+    memory = new Semaphore(memoryPermits);
+  }
+
+  // the executor must be able to run every reader and parser at the same time, without one they get own threads
+  <P extends Parser> List<P> run(AnalysisExecutor executor, final List<? extends Source> sources, int parserThreads,
+                                 ParserFactory<P> parserFactory) {
+    final int parsers = Math.max(1, parserThreads);
+    final AtomicInteger nextSource = new AtomicInteger();
+    final AtomicInteger activeReaders = new AtomicInteger(readerThreads);
+
+    final List<Callable<Void>> workerCalls = new ArrayList<Callable<Void>>(readerThreads + parsers);
+    for (int i = 0; i < readerThreads; i++) {
+      workerCalls.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          try {
+            int index = nextSource.getAndIncrement();
+            while (index < sources.size()) {
+              sources.get(index).read(ClassFilePipeline.this);
+              index = nextSource.getAndIncrement();
+            }
+          } catch (RuntimeException e) {
+            aborted = true;
+            throw e;
+          } finally {
+            // the last reader tells every parser to stop
+            if ((activeReaders.decrementAndGet() == 0) && !aborted) {
+              for (int k = 0; k < parsers; k++) {
+                enqueue(END_OF_CLASS_FILES);
+              }
+            }
+          }
+          return null;
+        }
+      });
+    }
+
+    final List<P> parserList = new ArrayList<P>(parsers);
+    for (int i = 0; i < parsers; i++) {
+      final P parser = parserFactory.newParser();
+      parserList.add(parser);
+      workerCalls.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          try {
+            Item item = take();
+            while (item != END_OF_CLASS_FILES) {
+              parser.parse(item.source, item.name, item.classFile);
+
+              // the buffer keeps its memory until a reader reuses it or needs the memory for a new one
+              bufferPool.offer(item.classFile);
+              item = take();
+            }
+          } catch (RuntimeException e) {
+            aborted = true;
+            throw e;
+          }
+          return null;
+        }
+      });
+    }
+
+    try {
+      RuntimeException failure = null;
+      for (Future<Void> result : AnalysisExecutor.invokeAll(executor, workerCalls)) {
+        try {
+          result.get();
+        } catch (ExecutionException e) {
+          final Throwable cause = e.getCause();
+          if ((failure == null) || (failure instanceof CancellationException)) {
+            failure = (cause instanceof RuntimeException)
+              ? (RuntimeException) cause : new IllegalStateException("Unable to analyze artifacts!", cause);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return parserList;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while analyzing artifacts!", e);
+    } finally {
+      ClassFileBuffer pooledBuffer = bufferPool.poll();
+      while (pooledBuffer != null) {
+        memory.release(permitsOf(pooledBuffer.getCapacity()));
+        pooledBuffer = bufferPool.poll();
+      }
+    }
+  }
+
+  // called by the sources' read() to hand over a class file, blocks as long as the memory limit is exceeded
+  void submit(Source source, String name, InputStream classFileStream, long size) throws IOException {
+    // a pooled buffer still holds the memory of its capacity
+    ClassFileBuffer classFile = bufferPool.poll();
+    final int pooledPermits;
+    if (classFile == null) {
+      classFile = new ClassFileBuffer();
+      pooledPermits = 0;
+    } else {
+      pooledPermits = permitsOf(classFile.getCapacity());
+    }
+
+    // readers hold no memory while waiting for more, they would block each other otherwise
+    final int reservedPermits = permitsOf(Math.max(classFile.getCapacity(), (size < 0) ? UNKNOWN_SIZE : size));
+    if (reservedPermits > pooledPermits) {
+      memory.release(pooledPermits);
+      acquire(reservedPermits);
+    }
+
+    try {
+      classFile.read(classFileStream, size);
+    } catch (IOException e) {
+      // the buffer is reused with the memory reserved for it, unless it has grown beyond
+      final int permits = permitsOf(classFile.getCapacity());
+      if (permits <= reservedPermits) {
+        memory.release(reservedPermits - permits);
+        bufferPool.offer(classFile);
+      } else {
+        memory.release(reservedPermits);
+      }
+      throw e;
+    }
+
+    // the size of an entry may have been unknown or wrong, the buffer holds the memory of its actual capacity
+    final int permits = permitsOf(classFile.getCapacity());
+    if (permits > reservedPermits) {
+      memory.release(reservedPermits);
+      acquire(permits);
+    } else {
+      memory.release(reservedPermits - permits);
+    }
+
+    classFiles.incrementAndGet();
+    bytes.addAndGet(classFile.getLength());
+
+    enqueue(new Item(source, name, classFile));
+  }
+
+  private int permitsOf(long bytes) {
+    // a single class file may exceed the memory limit, it is read as the only one then
+    return (int) Math.max(1, Math.min(memoryPermits, (bytes + KILOBYTE - 1) / KILOBYTE));
+  }
+
+  private void acquire(int permits) {
+    final long start = System.nanoTime();
+    try {
+      while (!memory.tryAcquire(permits)) {
+        // pooled buffers give their memory to the class files waiting for it
+        final ClassFileBuffer pooledBuffer = bufferPool.poll();
+        if (pooledBuffer != null) {
+          memory.release(permitsOf(pooledBuffer.getCapacity()));
+        } else if (memory.tryAcquire(permits, POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+          return;
+        } else {
+          checkNotAborted();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for memory!");
+    } finally {
+      readerStallNanos.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  private void enqueue(Item item) {
+    final long start = System.nanoTime();
+    try {
+      while (!queue.offer(item, POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+        checkNotAborted();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for the parsers!");
+    } finally {
+      readerStallNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    if (item != END_OF_CLASS_FILES) {
+      final int queueDepth = queue.size();
+      queueDepthSum.addAndGet(queueDepth);
+      int maxDepth = maxQueueDepth.get();
+      while ((queueDepth > maxDepth) && !maxQueueDepth.compareAndSet(maxDepth, queueDepth)) {
+        maxDepth = maxQueueDepth.get();
+      }
+    }
+  }
+
+  private Item take() {
+    final long start = System.nanoTime();
+    try {
+      Item item = queue.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+      while (item == null) {
+        checkNotAborted();
+        item = queue.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+      }
+      return item;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for class files!");
+    } finally {
+      parserStallNanos.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  private void checkNotAborted() {
+    if (aborted) {
+      throw new CancellationException("Pipeline has been aborted.");
+    }
+  }
+
+  int getClassFiles() {
+    return classFiles.get();
+  }
+
+  long getBytes() {
+    return bytes.get();
+  }
+
+  long getReservedMemory() {
+    return (long) (memoryPermits - memory.availablePermits()) * KILOBYTE;
+  }
+
+  int getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  double getAverageQueueDepth() {
+    final int numberOfClassFiles = classFiles.get();
+    return (numberOfClassFiles == 0) ? 0 : ((double) queueDepthSum.get() / numberOfClassFiles);
+  }
+
+  long getReaderStallMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(readerStallNanos.get());
+  }
+
+  long getParserStallMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(parserStallNanos.get());
+  }
+
+  String describeMetrics() {
+    return format("%d class files (%d KB) passed the pipeline, queue depth avg. %.1f max. %d, " +
+      "readers stalled %d ms, parsers stalled %d ms.",
+      getClassFiles(), getBytes() / KILOBYTE, getAverageQueueDepth(), getMaxQueueDepth(), getReaderStallMillis(),
+      getParserStallMillis());
+  }
+
+  interface Source {
+    void read(ClassFilePipeline pipeline);
+  }
+
+  interface Parser {
+    void parse(Source source, String name, ClassFileBuffer classFile);
+  }
+
+  interface ParserFactory<P extends Parser> {
+    P newParser();
+  }
+
+  private static final class Item {
+    private final Source source;
+    private final String name;
+    private final ClassFileBuffer classFile;
+
+    private Item(Source source, String name, ClassFileBuffer classFile) {
+      this.source = source;
+      this.name = name;
+      this.classFile = classFile;
+    }
+  }
+}
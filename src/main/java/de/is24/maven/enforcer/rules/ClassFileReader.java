@@ -0,0 +1,10 @@
+package de.is24.maven.enforcer.rules;
+
+// reads a class file's type and type dependencies into a repository, instances are reused per thread
+interface ClassFileReader {
+  // the class file occupies the first length bytes of the passed buffer, which is reused afterwards
+  String readClassName(byte[] classFile, int length);
+
+  // add the type and its dependencies of the class file last passed to readClassName()
+  void readDependencies();
+}
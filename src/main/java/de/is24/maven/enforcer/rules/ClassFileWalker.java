@@ -0,0 +1,103 @@
+package de.is24.maven.enforcer.rules;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+// lists the class files below a directory, subdirectories are listed by several threads if requested
+final class ClassFileWalker {
+  private static final String CLASS_SUFFIX = ".class";
+  private static final File END_OF_DIRECTORIES = new File("");
+
+  private ClassFileWalker() {
+  }
+
+  static List<File> listClassFiles(File directory, int threads, AnalysisExecutor executor) {
+    final List<File> classFiles = new ArrayList<File>();
+    if (threads <= 1) {
+      listClassFiles(directory, classFiles);
+      return classFiles;
+    }
+
+    final BlockingQueue<File> directories = new LinkedBlockingQueue<File>();
+    final AtomicInteger pendingDirectories = new AtomicInteger(1);
+    directories.add(directory);
+
+    final int workers = threads;
+    final List<Callable<List<File>>> workerCalls = new ArrayList<Callable<List<File>>>(workers);
+    for (int i = 0; i < workers; i++) {
+      workerCalls.add(new Callable<List<File>>() {
+        @Override
+        public List<File> call() throws InterruptedException {
+          final List<File> workerClassFiles = new ArrayList<File>();
+          final List<File> subdirectories = new ArrayList<File>();
+          File nextDirectory = directories.take();
+          while (nextDirectory != END_OF_DIRECTORIES) {
+            try {
+              listDirectory(nextDirectory, workerClassFiles, subdirectories);
+              pendingDirectories.addAndGet(subdirectories.size());
+              directories.addAll(subdirectories);
+              subdirectories.clear();
+            } finally {
+              // the walk must terminate even if listing a directory fails, the last directory stops every worker
+              if (pendingDirectories.decrementAndGet() == 0) {
+                for (int k = 0; k < workers; k++) {
+                  directories.add(END_OF_DIRECTORIES);
+                }
+              }
+            }
+            nextDirectory = directories.take();
+          }
+          return workerClassFiles;
+        }
+      });
+    }
+
+    try {
+      for (Future<List<File>> result : AnalysisExecutor.invokeAll(executor, workerCalls)) {
+        classFiles.addAll(result.get());
+      }
+      return classFiles;
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Unable to list class files in '" + directory + "'!", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while listing class files in '" + directory + "'!", e);
+    }
+  }
+
+  private static void listClassFiles(File directory, List<File> classFiles) {
+    final List<File> subdirectories = new ArrayList<File>();
+    listDirectory(directory, classFiles, subdirectories);
+    for (File subdirectory : subdirectories) {
+      listClassFiles(subdirectory, classFiles);
+    }
+  }
+
+  private static void listDirectory(File directory, List<File> classFiles, List<File> subdirectories) {
+    final File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    // the name is checked first, class files don't need the additional file system access
+    for (File file : files) {
+      if (file.getName().endsWith(CLASS_SUFFIX)) {
+        classFiles.add(file);
+      } else if (file.isDirectory()) {
+        subdirectories.add(file);
+      }
+    }
+  }
+}
@@ -3,10 +3,9 @@ package de.is24.maven.enforcer.rules;
 import org.apache.maven.plugin.logging.Log;
 import org.codehaus.plexus.util.StringUtils;
 
-import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.regex.Pattern;
 
 final class ClassFilter {
@@ -15,75 +14,130 @@ final class ClassFilter {
     "(boolean)|(byte)|(char)|(short)|(int)|(long)|(float)|(double)|(void)|" +
     "(java\\.[\\w\\.\\$]*)";
 
-  // path of current Java runtime environment
-  private static final String JAVA_HOME_PATH = "file:" + System.getProperty("java.home");
-  private static final Pattern JAVA_RUNTIME_PACKAGES = Pattern.compile(
+  // packages of the Java runtime's types which aren't ignored anyway
+  static final Pattern JAVA_RUNTIME_PACKAGES = Pattern.compile(
     "^(javax|com\\.sun|org|sun|jdk)\\..+");
 
-  // cache JDK types that already have been checked..
-  private final Map<String, Boolean> alreadyProcessedJavaTypes = new HashMap<String, Boolean>();
+  private static final String[] PRIMITIVE_TYPES = {
+    "boolean", "byte", "char", "short", "int", "long", "float", "double", "void"
+  };
 
-  private final Pattern ignoredClassesPattern;
-  private final boolean suppressTypesFromJavaRuntime;
+  private final String ignoredClassesRegex;
+  private final TypeNameMatcher ignoredClassesMatcher;
+  private final JavaRuntimeTypes javaRuntimeTypes;
+  private final Granularity granularity;
   private final Log logger;
 
+  // the ids of the names which passed this filter, shared by all repositories of an execution
+  private final SymbolTable symbolTable = new SymbolTable();
+
   ClassFilter(Log logger, boolean suppressTypesFromJavaRuntime, String... regexIgnoredClasses) {
+    this(logger, suppressTypesFromJavaRuntime ? JavaRuntimeTypes.forRelease(logger, 0, null) : null,
+      regexIgnoredClasses);
+  }
+
+  // suppresses the given types of the Java runtime unless they are null
+  ClassFilter(Log logger, JavaRuntimeTypes javaRuntimeTypes, String... regexIgnoredClasses) {
+    this(logger, javaRuntimeTypes, Granularity.CLASS, regexIgnoredClasses);
+  }
+
+  ClassFilter(Log logger, JavaRuntimeTypes javaRuntimeTypes, Granularity granularity, String... regexIgnoredClasses) {
     this.logger = logger;
-    this.suppressTypesFromJavaRuntime = suppressTypesFromJavaRuntime;
+    this.javaRuntimeTypes = javaRuntimeTypes;
+    this.granularity = granularity;
 
-    if ((regexIgnoredClasses == null) || (regexIgnoredClasses.length == 0)) {
-      ignoredClassesPattern = Pattern.compile(JAVA_TYPES_REGEX);
-    } else {
-      final StringBuilder regexBuilder = new StringBuilder(JAVA_TYPES_REGEX);
+    final StringBuilder regexBuilder = new StringBuilder(JAVA_TYPES_REGEX);
+    final List<String> regexes = new ArrayList<String>();
+    if (regexIgnoredClasses != null) {
       for (String regex : regexIgnoredClasses) {
         if (StringUtils.isNotEmpty(regex)) {
           regexBuilder.append("|(").append(regex).append(")");
+          regexes.add(regex);
         }
       }
+    }
+    ignoredClassesRegex = regexBuilder.toString();
+
+    // the built-in suppressions of JAVA_TYPES_REGEX except the numerical names, which are checked separately
+    ignoredClassesMatcher = new TypeNameMatcher(regexes.toArray(new String[regexes.size()])).withPrefix("java.");
+    for (String primitiveType : PRIMITIVE_TYPES) {
+      ignoredClassesMatcher.withName(primitiveType);
+    }
 
-      final String regex = regexBuilder.toString();
-      logger.debug("Use type suppression pattern '" + regex + "'.");
-      ignoredClassesPattern = Pattern.compile(regex);
+    if (!regexes.isEmpty()) {
+      logger.debug("Use type suppression pattern '" + ignoredClassesRegex + "'.");
+      logger.debug("Match " + ignoredClassesMatcher.getTrieEntries() + " names and prefixes by trie, fall back to " +
+        "pattern '" + ignoredClassesMatcher.getFallbackRegex() + "'.");
     }
   }
 
-  private boolean typeFromJavaRuntime(String type) {
-    if (JAVA_RUNTIME_PACKAGES.matcher(type).matches()) {
-      // check if this type has already been checked
-      final Boolean isJdkType = alreadyProcessedJavaTypes.get(type);
-      if (isJdkType != null) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("Type's '" + type + "' existence in current Java runtime has already been checked.");
-        }
-        return isJdkType;
+  // same suppressions, but its own names of another granularity
+  private ClassFilter(ClassFilter filter, Granularity granularity) {
+    logger = filter.logger;
+    javaRuntimeTypes = filter.javaRuntimeTypes;
+    ignoredClassesRegex = filter.ignoredClassesRegex;
+    ignoredClassesMatcher = filter.ignoredClassesMatcher;
+    this.granularity = granularity;
+  }
+
+  // '[0-9\$]+'
+  private static boolean isNumericalName(String type) {
+    if (type.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < type.length(); i++) {
+      final char c = type.charAt(i);
+      if (((c < '0') || (c > '9')) && (c != '$')) {
+        return false;
       }
+    }
+    return true;
+  }
 
-      final String classResource = type.replace('.', '/') + ".class";
-      final URL it = ClassLoader.getSystemClassLoader().getResource(classResource);
-      if (it != null) {
-        final String sourcePath = it.getFile();
-        if (sourcePath.startsWith(JAVA_HOME_PATH)) {
-          if (logger.isDebugEnabled()) {
-            logger.debug("Suppress type '" + type + "', it's in current Java runtime '" + JAVA_HOME_PATH + "'.");
-          }
-          alreadyProcessedJavaTypes.put(type, true);
-          return true;
-        }
+  private boolean typeFromJavaRuntime(String type) {
+    // the index only contains types of the JAVA_RUNTIME_PACKAGES
+    if (javaRuntimeTypes.contains(type)) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Suppress type '" + type + "', it's in current Java runtime '" +
+          javaRuntimeTypes.getDescription() + "'.");
       }
-      alreadyProcessedJavaTypes.put(type, false);
-      return false;
+      return true;
     }
     return false;
   }
 
+  // distinguishes the results of differently configured filters, e.g. in the type index cache
+  String getFingerprint() {
+    final String fingerprint = (granularity == Granularity.CLASS) ? ignoredClassesRegex
+      : (ignoredClassesRegex + "|" + granularity);
+    return (javaRuntimeTypes != null) ? (fingerprint + "|" + javaRuntimeTypes.getDescription()) : fingerprint;
+  }
+
+  Granularity getGranularity() {
+    return granularity;
+  }
+
+  ClassFilter withGranularity(Granularity granularity) {
+    return (granularity == this.granularity) ? this : new ClassFilter(this, granularity);
+  }
+
+  // the name recorded for a considered type
+  String readName(String type) {
+    return granularity.readName(type);
+  }
+
+  SymbolTable getSymbolTable() {
+    return symbolTable;
+  }
+
   void addFiltered(Collection<String> set, String type) {
     if (isConsideredType(type)) {
-      set.add(type);
+      set.add(readName(type));
     }
   }
 
   boolean isConsideredType(String type) {
-    if (ignoredClassesPattern.matcher(type).matches()) {
+    if (isNumericalName(type) || ignoredClassesMatcher.matches(type)) {
       if (logger.isDebugEnabled()) {
         logger.debug("Suppress type '" + type + "'.");
       }
@@ -91,6 +145,6 @@ final class ClassFilter {
     }
 
     // check if JDK classes should be ignored and class comes from current Java runtime..
-    return !(suppressTypesFromJavaRuntime && typeFromJavaRuntime(type));
+    return !((javaRuntimeTypes != null) && typeFromJavaRuntime(type));
   }
 }
@@ -0,0 +1,130 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+
+// remembers the types and dependencies of every class file in a classes directory between two builds
+final class ClassesDirectorySnapshot {
+  private static final int SNAPSHOT_FILE_MAGIC = 0x49544432;
+
+  private final String description;
+  private final Map<String, ClassFileState> classFiles = new HashMap<String, ClassFileState>();
+
+  ClassesDirectorySnapshot(String description) {
+    this.description = description;
+  }
+
+  static ClassesDirectorySnapshot read(File snapshotFile, String description, Log logger) {
+    final ClassesDirectorySnapshot snapshot = new ClassesDirectorySnapshot(description);
+    if (!snapshotFile.isFile()) {
+      return snapshot;
+    }
+
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+      if ((input.readInt() != SNAPSHOT_FILE_MAGIC) || !description.equals(input.readUTF())) {
+        logger.debug("Snapshot '" + snapshotFile + "' has been taken from other classes, ignore it.");
+        return snapshot;
+      }
+
+      final int numberOfClassFiles = input.readInt();
+      for (int i = 0; i < numberOfClassFiles; i++) {
+        final String path = input.readUTF();
+        final long lastModified = input.readLong();
+        final long size = input.readLong();
+        snapshot.classFiles.put(path,
+          new ClassFileState(lastModified, size, TypeIndexCache.readNames(input), TypeIndexCache.readNames(input)));
+      }
+      return snapshot;
+    } catch (IOException e) {
+      logger.warn("Unable to read snapshot '" + snapshotFile + "', ignore it.", e);
+      return new ClassesDirectorySnapshot(description);
+    } finally {
+      IOUtil.close(input);
+    }
+  }
+
+  void write(File snapshotFile, Log logger) {
+    final File directory = snapshotFile.getParentFile();
+    if ((directory != null) && !directory.isDirectory() && !directory.mkdirs()) {
+      logger.warn("Unable to create directory '" + directory + "'!");
+      return;
+    }
+
+    DataOutputStream output = null;
+    try {
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFile)));
+      output.writeInt(SNAPSHOT_FILE_MAGIC);
+      output.writeUTF(description);
+      output.writeInt(classFiles.size());
+      for (Map.Entry<String, ClassFileState> classFile : classFiles.entrySet()) {
+        final ClassFileState state = classFile.getValue();
+        output.writeUTF(classFile.getKey());
+        output.writeLong(state.lastModified);
+        output.writeLong(state.size);
+        TypeIndexCache.writeNames(output, state.types);
+        TypeIndexCache.writeNames(output, state.dependencies);
+      }
+      output.close();
+    } catch (IOException e) {
+      logger.warn("Unable to write snapshot '" + snapshotFile + "'!", e);
+    } finally {
+      IOUtil.close(output);
+    }
+  }
+
+  // returns the state of a class file that has not been changed since the snapshot has been taken
+  ClassFileState getUnchanged(String path, long lastModified, long size) {
+    final ClassFileState state = classFiles.get(path);
+    if ((state != null) && (state.lastModified == lastModified) && (state.size == size)) {
+      return state;
+    }
+    return null;
+  }
+
+  void put(String path, ClassFileState state) {
+    classFiles.put(path, state);
+  }
+
+  int countClassFilesMissingIn(ClassesDirectorySnapshot snapshot) {
+    int missingClassFiles = 0;
+    for (String path : classFiles.keySet()) {
+      if (!snapshot.classFiles.containsKey(path)) {
+        missingClassFiles++;
+      }
+    }
+    return missingClassFiles;
+  }
+
+  static final class ClassFileState {
+    private final long lastModified;
+    private final long size;
+    private final Collection<String> types;
+    private final Collection<String> dependencies;
+
+    ClassFileState(long lastModified, long size, Collection<String> types, Collection<String> dependencies) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.types = types;
+      this.dependencies = dependencies;
+    }
+
+    void addTo(Repository repository) {
+      repository.addAll(types, dependencies);
+    }
+  }
+}
@@ -0,0 +1,806 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.plugin.logging.Log;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * Reads the type dependencies straight from the constant pool and the attribute tables of a class file. Method
+ * instructions are only scanned for the constant pool entries they reference, each entry is resolved once per class.
+ * The reported dependencies equal the ones of the {@link ClassDependencyResolvingVisitor}.
+ */
+final class ConstantPoolClassFileReader implements ClassFileReader {
+  // constant pool tags
+  private static final int UTF8 = 1;
+  private static final int INTEGER = 3;
+  private static final int FLOAT = 4;
+  private static final int LONG = 5;
+  private static final int DOUBLE = 6;
+  private static final int CLASS = 7;
+  private static final int STRING = 8;
+  private static final int FIELD_REF = 9;
+  private static final int METHOD_REF = 10;
+  private static final int INTERFACE_METHOD_REF = 11;
+  private static final int NAME_AND_TYPE = 12;
+  private static final int METHOD_HANDLE = 15;
+  private static final int METHOD_TYPE = 16;
+  private static final int DYNAMIC = 17;
+  private static final int INVOKE_DYNAMIC = 18;
+  private static final int MODULE = 19;
+  private static final int PACKAGE = 20;
+
+  // opcodes referencing the constant pool or having a variable length
+  private static final int LDC = 0x12;
+  private static final int LDC_W = 0x13;
+  private static final int LDC2_W = 0x14;
+  private static final int IINC = 0x84;
+  private static final int TABLESWITCH = 0xaa;
+  private static final int LOOKUPSWITCH = 0xab;
+  private static final int GETSTATIC = 0xb2;
+  private static final int PUTSTATIC = 0xb3;
+  private static final int GETFIELD = 0xb4;
+  private static final int PUTFIELD = 0xb5;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int INVOKESTATIC = 0xb8;
+  private static final int INVOKEINTERFACE = 0xb9;
+  private static final int NEW = 0xbb;
+  private static final int ANEWARRAY = 0xbd;
+  private static final int CHECKCAST = 0xc0;
+  private static final int INSTANCEOF = 0xc1;
+  private static final int WIDE = 0xc4;
+  private static final int MULTIANEWARRAY = 0xc5;
+
+  private static final byte[] INSTRUCTION_LENGTHS = makeInstructionLengths();
+
+  // ASM reports the type of a method handle constant as its own handle type
+  private static final String METHOD_HANDLE_TYPE = Handle.class.getName();
+
+  private final Repository repository;
+  private final Log logger;
+  private final AnalysisDepth analysisDepth;
+
+  private byte[] b;
+  private int[] offsets = new int[256];
+  private String[] strings = new String[256];
+
+  // constant pool entries already resolved in the current class are marked with the current class' mark
+  private int[] resolved = new int[256];
+  private int mark;
+  private int header;
+
+  // the same type is usually referenced by many descriptors, it's filtered only once per class
+  private final Set<String> classDependencies = new HashSet<String>();
+  private final TypeNameCache typeNames = new TypeNameCache();
+
+  ConstantPoolClassFileReader(Repository repository, Log logger, AnalysisDepth analysisDepth) {
+    this.repository = repository;
+    this.logger = logger;
+    this.analysisDepth = analysisDepth;
+  }
+
+  @Override
+  public String readClassName(byte[] classFile, int length) {
+    b = classFile;
+
+    final int constantPoolCount = readUnsignedShort(8);
+    if (offsets.length < constantPoolCount) {
+      offsets = new int[constantPoolCount];
+      strings = new String[constantPoolCount];
+      resolved = new int[constantPoolCount];
+    } else {
+      Arrays.fill(strings, 0, constantPoolCount, null);
+    }
+
+    mark++;
+    if (mark == 0) {
+      Arrays.fill(resolved, 0);
+      mark = 1;
+    }
+
+    int index = 10;
+    for (int i = 1; i < constantPoolCount; i++) {
+      offsets[i] = index + 1;
+      switch (b[index]) {
+        case UTF8: {
+          index += 3 + readUnsignedShort(index + 1);
+          break;
+        }
+
+        case INTEGER:
+        case FLOAT:
+        case FIELD_REF:
+        case METHOD_REF:
+        case INTERFACE_METHOD_REF:
+        case NAME_AND_TYPE:
+        case DYNAMIC:
+        case INVOKE_DYNAMIC: {
+          index += 5;
+          break;
+        }
+
+        case LONG:
+        case DOUBLE: {
+          index += 9;
+          i++;
+          break;
+        }
+
+        case METHOD_HANDLE: {
+          index += 4;
+          break;
+        }
+
+        case CLASS:
+        case STRING:
+        case METHOD_TYPE:
+        case MODULE:
+        case PACKAGE: {
+          index += 3;
+          break;
+        }
+
+        default: {
+          throw new IllegalArgumentException("Unknown constant pool tag " + b[index] + " at offset " + index + "!");
+        }
+      }
+    }
+    header = index;
+
+    return readClassEntryName(readUnsignedShort(header + 2)).replace('/', '.');
+  }
+
+  @Override
+  public void readDependencies() {
+    int index = header + 2;
+    classDependencies.clear();
+
+    final String className = typeNames.readInternalTypeName(readClassEntryName(readUnsignedShort(index)));
+    if (logger.isDebugEnabled()) {
+      logger.debug("Add new type '" + className + "'.");
+    }
+    repository.addType(className);
+
+    final int superClass = readUnsignedShort(index + 2);
+    if (superClass != 0) {
+      addClassEntry("super type", superClass);
+    }
+
+    final int interfacesCount = readUnsignedShort(index + 4);
+    index += 6;
+    for (int i = 0; i < interfacesCount; i++) {
+      addClassEntry("interface type", readUnsignedShort(index));
+      index += 2;
+    }
+
+    final int fieldsCount = readUnsignedShort(index);
+    index += 2;
+    for (int i = 0; i < fieldsCount; i++) {
+      index = readField(index);
+    }
+
+    final int methodsCount = readUnsignedShort(index);
+    index += 2;
+    for (int i = 0; i < methodsCount; i++) {
+      index = readMethod(index);
+    }
+
+    final int attributesCount = readUnsignedShort(index);
+    index += 2;
+    for (int i = 0; i < attributesCount; i++) {
+      final String attributeName = readUtf8(readUnsignedShort(index));
+      final int attributeLength = readInt(index + 2);
+      final int attribute = index + 6;
+
+      if ("Signature".equals(attributeName)) {
+        readSignature(readUtf8(readUnsignedShort(attribute)));
+      } else if ("InnerClasses".equals(attributeName)) {
+        readInnerClasses(attribute);
+      } else if ("RuntimeVisibleAnnotations".equals(attributeName) ||
+          "RuntimeInvisibleAnnotations".equals(attributeName)) {
+        readAnnotations(attribute);
+      }
+      index = attribute + attributeLength;
+    }
+  }
+
+  private int readField(int field) {
+    addTypeDescription("field type", readUtf8(readUnsignedShort(field + 4)));
+
+    final int attributesCount = readUnsignedShort(field + 6);
+    int index = field + 8;
+    for (int i = 0; i < attributesCount; i++) {
+      final String attributeName = readUtf8(readUnsignedShort(index));
+      final int attributeLength = readInt(index + 2);
+      final int attribute = index + 6;
+
+      if ("ConstantValue".equals(attributeName)) {
+        addConstant("field value type", readUnsignedShort(attribute));
+      } else if ("Signature".equals(attributeName)) {
+        readSignature(readUtf8(readUnsignedShort(attribute)));
+      } else if ("RuntimeVisibleAnnotations".equals(attributeName) ||
+          "RuntimeInvisibleAnnotations".equals(attributeName)) {
+        readAnnotations(attribute);
+      }
+      index = attribute + attributeLength;
+    }
+    return index;
+  }
+
+  private int readMethod(int method) {
+    addMethodDescription("method parameter or return type", readUtf8(readUnsignedShort(method + 4)));
+
+    final int attributesCount = readUnsignedShort(method + 6);
+    int index = method + 8;
+    for (int i = 0; i < attributesCount; i++) {
+      final String attributeName = readUtf8(readUnsignedShort(index));
+      final int attributeLength = readInt(index + 2);
+      final int attribute = index + 6;
+
+      if ("Code".equals(attributeName)) {
+        if (analysisDepth.readsCode()) {
+          readCode(attribute);
+        }
+      } else if ("Exceptions".equals(attributeName)) {
+        final int exceptionsCount = readUnsignedShort(attribute);
+        for (int k = 0; k < exceptionsCount; k++) {
+          addClassEntry("exception type", readUnsignedShort(attribute + 2 + (2 * k)));
+        }
+      } else if ("Signature".equals(attributeName)) {
+        readSignature(readUtf8(readUnsignedShort(attribute)));
+      } else if ("RuntimeVisibleAnnotations".equals(attributeName) ||
+          "RuntimeInvisibleAnnotations".equals(attributeName)) {
+        readAnnotations(attribute);
+      } else if ("RuntimeVisibleParameterAnnotations".equals(attributeName) ||
+          "RuntimeInvisibleParameterAnnotations".equals(attributeName)) {
+        final int parametersCount = b[attribute] & 0xFF;
+        int parameter = attribute + 1;
+        for (int k = 0; k < parametersCount; k++) {
+          parameter = readAnnotations(parameter);
+        }
+      } else if ("AnnotationDefault".equals(attributeName)) {
+        readElementValue(attribute);
+      }
+      index = attribute + attributeLength;
+    }
+    return index;
+  }
+
+  private void readCode(int code) {
+    final int codeLength = readInt(code + 4);
+    final int codeStart = code + 8;
+    final int codeEnd = codeStart + codeLength;
+
+    int index = codeStart;
+    while (index < codeEnd) {
+      final int opcode = b[index] & 0xFF;
+      switch (opcode) {
+        case LDC: {
+          addConstant("constant's type", b[index + 1] & 0xFF);
+          index += 2;
+          break;
+        }
+
+        case LDC_W:
+        case LDC2_W: {
+          addConstant("constant's type", readUnsignedShort(index + 1));
+          index += 3;
+          break;
+        }
+
+        case NEW:
+        case ANEWARRAY:
+        case CHECKCAST:
+        case INSTANCEOF: {
+          addClassEntry("type instruction type", readUnsignedShort(index + 1));
+          index += 3;
+          break;
+        }
+
+        case GETSTATIC:
+        case PUTSTATIC:
+        case GETFIELD:
+        case PUTFIELD: {
+          addFieldReference(readUnsignedShort(index + 1));
+          index += 3;
+          break;
+        }
+
+        case INVOKEVIRTUAL:
+        case INVOKESPECIAL:
+        case INVOKESTATIC:
+        case INVOKEINTERFACE: {
+          addMethodReference(readUnsignedShort(index + 1));
+          index += (opcode == INVOKEINTERFACE) ? 5 : 3;
+          break;
+        }
+
+        case MULTIANEWARRAY: {
+          final int classEntry = readUnsignedShort(index + 1);
+          if (isUnresolved(classEntry)) {
+            addTypeDescription("array's type", readClassEntryName(classEntry));
+          }
+          index += 4;
+          break;
+        }
+
+        case TABLESWITCH: {
+          final int table = index + 4 - ((index - codeStart) & 3);
+          final int low = readInt(table + 4);
+          final int high = readInt(table + 8);
+          index = table + 12 + (4 * (high - low + 1));
+          break;
+        }
+
+        case LOOKUPSWITCH: {
+          final int table = index + 4 - ((index - codeStart) & 3);
+          index = table + 8 + (8 * readInt(table + 4));
+          break;
+        }
+
+        case WIDE: {
+          index += ((b[index + 1] & 0xFF) == IINC) ? 6 : 4;
+          break;
+        }
+
+        default: {
+          index += INSTRUCTION_LENGTHS[opcode];
+          break;
+        }
+      }
+    }
+
+    // exception table
+    final int exceptionTableLength = readUnsignedShort(codeEnd);
+    index = codeEnd + 2;
+    for (int i = 0; i < exceptionTableLength; i++) {
+      final int catchType = readUnsignedShort(index + 6);
+      if (catchType != 0) {
+        addClassEntry("exception type", catchType);
+      }
+      index += 8;
+    }
+
+    // the local variable tables are debug information
+    if (!analysisDepth.readsLocalVariables()) {
+      return;
+    }
+
+    final int attributesCount = readUnsignedShort(index);
+    index += 2;
+    for (int i = 0; i < attributesCount; i++) {
+      final String attributeName = readUtf8(readUnsignedShort(index));
+      final int attributeLength = readInt(index + 2);
+      final int attribute = index + 6;
+
+      if ("LocalVariableTable".equals(attributeName)) {
+        final int localVariablesCount = readUnsignedShort(attribute);
+        for (int k = 0; k < localVariablesCount; k++) {
+          addTypeDescription("local variable", readUtf8(readUnsignedShort(attribute + 2 + (10 * k) + 6)));
+        }
+      } else if ("LocalVariableTypeTable".equals(attributeName)) {
+        final int localVariablesCount = readUnsignedShort(attribute);
+        for (int k = 0; k < localVariablesCount; k++) {
+          readSignature(readUtf8(readUnsignedShort(attribute + 2 + (10 * k) + 6)));
+        }
+      }
+      index = attribute + attributeLength;
+    }
+  }
+
+  private void readInnerClasses(int innerClasses) {
+    final int classesCount = readUnsignedShort(innerClasses);
+    for (int i = 0; i < classesCount; i++) {
+      addClassEntry("inner class", readUnsignedShort(innerClasses + 2 + (8 * i)));
+    }
+  }
+
+  private int readAnnotations(int annotations) {
+    final int annotationsCount = readUnsignedShort(annotations);
+    int index = annotations + 2;
+    for (int i = 0; i < annotationsCount; i++) {
+      index = readAnnotation(index);
+    }
+    return index;
+  }
+
+  private int readAnnotation(int annotation) {
+    addTypeDescription("annotation", readUtf8(readUnsignedShort(annotation)));
+
+    final int elementValuePairsCount = readUnsignedShort(annotation + 2);
+    int index = annotation + 4;
+    for (int i = 0; i < elementValuePairsCount; i++) {
+      index = readElementValue(index + 2);
+    }
+    return index;
+  }
+
+  private int readElementValue(int elementValue) {
+    final int tag = b[elementValue] & 0xFF;
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's': {
+        addDependency("annotation's value type", readConstantValueType(tag));
+        return elementValue + 3;
+      }
+
+      case 'e': {
+        addTypeDescription("annotation's enum type", readUtf8(readUnsignedShort(elementValue + 1)));
+        return elementValue + 5;
+      }
+
+      case 'c': {
+        addTypeDescription("annotation's value type", readUtf8(readUnsignedShort(elementValue + 1)));
+        return elementValue + 3;
+      }
+
+      case '@': {
+        return readAnnotation(elementValue + 1);
+      }
+
+      case '[': {
+        final int valuesCount = readUnsignedShort(elementValue + 1);
+        int index = elementValue + 3;
+        if (valuesCount == 0) {
+          return index;
+        }
+
+        // arrays of primitives are reported by their element type only
+        final String primitiveName = Types.readPrimitiveName(b[index] & 0xFF);
+        if (primitiveName != null) {
+          addDependency("annotation's value type", primitiveName);
+          return index + (3 * valuesCount);
+        }
+
+        for (int i = 0; i < valuesCount; i++) {
+          index = readElementValue(index);
+        }
+        return index;
+      }
+
+      default: {
+        throw new IllegalArgumentException("Unknown annotation element value tag '" + (char) tag + "'!");
+      }
+    }
+  }
+
+  private void readSignature(String signature) {
+    int index = 0;
+    if (signature.charAt(0) == '<') {
+      // skip the formal type parameters' names but read their bounds
+      index = 1;
+      char c;
+      do {
+        index = signature.indexOf(':', index) + 1;
+        c = signature.charAt(index);
+        if ((c == 'L') || (c == '[') || (c == 'T')) {
+          index = readSignatureType(signature, index);
+        }
+        while ((c = signature.charAt(index++)) == ':') {
+          index = readSignatureType(signature, index);
+        }
+      } while (c != '>');
+    }
+
+    final int length = signature.length();
+    if (signature.charAt(index) == '(') {
+      index++;
+      while (signature.charAt(index) != ')') {
+        index = readSignatureType(signature, index);
+      }
+      index = readSignatureType(signature, index + 1);
+      while (index < length) {
+        index = readSignatureType(signature, index + 1);
+      }
+    } else {
+      while (index < length) {
+        index = readSignatureType(signature, index);
+      }
+    }
+  }
+
+  private int readSignatureType(String signature, int start) {
+    int index = start;
+    char c = signature.charAt(index++);
+    switch (c) {
+      case 'Z':
+      case 'C':
+      case 'B':
+      case 'S':
+      case 'I':
+      case 'F':
+      case 'J':
+      case 'D':
+      case 'V': {
+        return index;
+      }
+
+      case '[': {
+        return readSignatureType(signature, index);
+      }
+
+      case 'T': {
+        return signature.indexOf(';', index) + 1;
+      }
+
+      default: {
+        // only the outermost class of a nested class type is reported, just like ASM's visitClassType()
+        int nameStart = index;
+        boolean visited = false;
+        boolean inner = false;
+        while (true) {
+          c = signature.charAt(index++);
+          if ((c == '.') || (c == ';')) {
+            if (!visited && !inner) {
+              addDependency("class type", typeNames.readInternalTypeName(signature, nameStart, index - 1));
+            }
+            if (c == ';') {
+              return index;
+            }
+            nameStart = index;
+            visited = false;
+            inner = true;
+          } else if (c == '<') {
+            if (!inner) {
+              addDependency("class type", typeNames.readInternalTypeName(signature, nameStart, index - 1));
+            }
+            visited = true;
+            while ((c = signature.charAt(index)) != '>') {
+              if (c == '*') {
+                index++;
+              } else if ((c == '+') || (c == '-')) {
+                index = readSignatureType(signature, index + 1);
+              } else {
+                index = readSignatureType(signature, index);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void addClassEntry(String typeDescription, int classEntry) {
+    if (isUnresolved(classEntry)) {
+      addDependency(typeDescription, typeNames.readInternalTypeName(readClassEntryName(classEntry)));
+    }
+  }
+
+  private void addFieldReference(int fieldReference) {
+    if (isUnresolved(fieldReference)) {
+      final int nameAndType = offsets[readUnsignedShort(offsets[fieldReference] + 2)];
+      addTypeDescription("field instruction type", readUtf8(readUnsignedShort(nameAndType + 2)));
+    }
+  }
+
+  private void addMethodReference(int methodReference) {
+    if (isUnresolved(methodReference)) {
+      final int reference = offsets[methodReference];
+      addDependency("method owner", typeNames.readInternalTypeName(readClassEntryName(readUnsignedShort(reference))));
+
+      final int nameAndType = offsets[readUnsignedShort(reference + 2)];
+      addMethodDescription("method parameter or return type", readUtf8(readUnsignedShort(nameAndType + 2)));
+    }
+  }
+
+  private void addConstant(String typeDescription, int constant) {
+    if (!isUnresolved(constant)) {
+      return;
+    }
+
+    final int index = offsets[constant];
+    switch (b[index - 1]) {
+      case INTEGER: {
+        addDependency(typeDescription, Integer.class.getName());
+        break;
+      }
+
+      case FLOAT: {
+        addDependency(typeDescription, Float.class.getName());
+        break;
+      }
+
+      case LONG: {
+        addDependency(typeDescription, Long.class.getName());
+        break;
+      }
+
+      case DOUBLE: {
+        addDependency(typeDescription, Double.class.getName());
+        break;
+      }
+
+      case STRING: {
+        addDependency(typeDescription, String.class.getName());
+        break;
+      }
+
+      case CLASS: {
+        addDependency(typeDescription, typeNames.readInternalTypeName(readUtf8(readUnsignedShort(index))));
+        break;
+      }
+
+      case METHOD_TYPE: {
+        final Type methodType = Type.getMethodType(readUtf8(readUnsignedShort(index)));
+        addDependency(typeDescription, Types.readValueType(methodType));
+        break;
+      }
+
+      case METHOD_HANDLE: {
+        addDependency(typeDescription, METHOD_HANDLE_TYPE);
+        break;
+      }
+
+      default: {
+        break;
+      }
+    }
+  }
+
+  private void addTypeDescription(String typeDescription, String description) {
+    addDescriptionType(typeDescription, description, 0);
+  }
+
+  private void addMethodDescription(String typeDescription, String description) {
+    int index = 1;
+    final int length = description.length();
+    while (index < length) {
+      if (description.charAt(index) == ')') {
+        index++;
+      } else {
+        index = addDescriptionType(typeDescription, description, index);
+      }
+    }
+  }
+
+  private int addDescriptionType(String typeDescription, String description, int start) {
+    addDependency(typeDescription, typeNames.readDescriptionType(description, start));
+    return TypeNameCache.skipDescriptionType(description, start);
+  }
+
+  private void addDependency(String typeDescription, String typeName) {
+    if (!classDependencies.add(typeName)) {
+      return;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Add " + typeDescription + " '" + typeName + "' as dependency.");
+    }
+    repository.addDependency(typeName);
+  }
+
+  private boolean isUnresolved(int constant) {
+    if (resolved[constant] == mark) {
+      return false;
+    }
+    resolved[constant] = mark;
+    return true;
+  }
+
+  private String readClassEntryName(int classEntry) {
+    return readUtf8(readUnsignedShort(offsets[classEntry]));
+  }
+
+  private String readUtf8(int constant) {
+    final String string = strings[constant];
+    if (string != null) {
+      return string;
+    }
+
+    final int index = offsets[constant];
+    final int length = readUnsignedShort(index);
+    final char[] chars = new char[length];
+    int charsLength = 0;
+    int i = index + 2;
+    final int end = i + length;
+    while (i < end) {
+      final int c = b[i++] & 0xFF;
+      if (c < 0x80) {
+        chars[charsLength++] = (char) c;
+      } else if ((c & 0xE0) == 0xC0) {
+        chars[charsLength++] = (char) (((c & 0x1F) << 6) | (b[i++] & 0x3F));
+      } else {
+        chars[charsLength++] = (char) (((c & 0x0F) << 12) | ((b[i++] & 0x3F) << 6) | (b[i++] & 0x3F));
+      }
+    }
+
+    final String decoded = new String(chars, 0, charsLength);
+    strings[constant] = decoded;
+    return decoded;
+  }
+
+  private int readUnsignedShort(int index) {
+    return ((b[index] & 0xFF) << 8) | (b[index + 1] & 0xFF);
+  }
+
+  private int readInt(int index) {
+    return ((b[index] & 0xFF) << 24) | ((b[index + 1] & 0xFF) << 16) | ((b[index + 2] & 0xFF) << 8) |
+      (b[index + 3] & 0xFF);
+  }
+
+  private static String readConstantValueType(int tag) {
+    switch (tag) {
+      case 'B': {
+        return Byte.class.getName();
+      }
+
+      case 'C': {
+        return Character.class.getName();
+      }
+
+      case 'D': {
+        return Double.class.getName();
+      }
+
+      case 'F': {
+        return Float.class.getName();
+      }
+
+      case 'I': {
+        return Integer.class.getName();
+      }
+
+      case 'J': {
+        return Long.class.getName();
+      }
+
+      case 'S': {
+        return Short.class.getName();
+      }
+
+      case 'Z': {
+        return Boolean.class.getName();
+      }
+
+      default: {
+        return String.class.getName();
+      }
+    }
+  }
+
+  private static byte[] makeInstructionLengths() {
+    final byte[] lengths = new byte[256];
+    Arrays.fill(lengths, (byte) 1);
+
+    // bipush, ldc, the local variable loads and stores, ret and newarray have a one byte operand
+    lengths[0x10] = 2;
+    lengths[LDC] = 2;
+    Arrays.fill(lengths, 0x15, 0x1a, (byte) 2);
+    Arrays.fill(lengths, 0x36, 0x3b, (byte) 2);
+    lengths[0xa9] = 2;
+    lengths[0xbc] = 2;
+
+    // sipush, ldc_w, ldc2_w, iinc, the jumps and all instructions referencing the constant pool
+    lengths[0x11] = 3;
+    lengths[LDC_W] = 3;
+    lengths[LDC2_W] = 3;
+    lengths[IINC] = 3;
+    Arrays.fill(lengths, 0x99, 0xa9, (byte) 3);
+    Arrays.fill(lengths, GETSTATIC, INVOKESTATIC + 1, (byte) 3);
+    lengths[NEW] = 3;
+    lengths[ANEWARRAY] = 3;
+    lengths[CHECKCAST] = 3;
+    lengths[INSTANCEOF] = 3;
+    lengths[0xc6] = 3;
+    lengths[0xc7] = 3;
+
+    // multianewarray, invokeinterface, invokedynamic, goto_w and jsr_w
+    lengths[MULTIANEWARRAY] = 4;
+    lengths[INVOKEINTERFACE] = 5;
+    lengths[0xba] = 5;
+    lengths[0xc8] = 5;
+    lengths[0xc9] = 5;
+    return lengths;
+  }
+}
@@ -0,0 +1,24 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.plugin.logging.Log;
+
+
+enum DependencyExtractor {
+  // visit the whole class file including all method instructions
+  ASM {
+    @Override
+    ClassFileReader newClassFileReader(Repository repository, Log logger, AnalysisDepth analysisDepth) {
+      return new AsmClassFileReader(repository, logger, analysisDepth);
+    }
+  },
+
+  // read the constant pool and the attribute tables straight from the class file
+  CONSTANT_POOL {
+    @Override
+    ClassFileReader newClassFileReader(Repository repository, Log logger, AnalysisDepth analysisDepth) {
+      return new ConstantPoolClassFileReader(repository, logger, analysisDepth);
+    }
+  };
+
+  abstract ClassFileReader newClassFileReader(Repository repository, Log logger, AnalysisDepth analysisDepth);
+}
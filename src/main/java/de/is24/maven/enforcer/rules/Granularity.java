@@ -0,0 +1,33 @@
+package de.is24.maven.enforcer.rules;
+
+// the names the repositories record for the types which pass a filter
+enum Granularity {
+  CLASS("type") {
+    @Override
+    String readName(String type) {
+      return type;
+    }
+  },
+
+  // 'my.package' of 'my.package.Type$Inner', the default package is the empty name
+  PACKAGE("package") {
+    @Override
+    String readName(String type) {
+      final int lastDot = type.lastIndexOf('.');
+      return (lastDot < 0) ? "" : type.substring(0, lastDot);
+    }
+  };
+
+  private final String description;
+
+  Granularity(String description) {
+    this.description = description;
+  }
+
+  // 'type' or 'package', as used in reports
+  String getDescription() {
+    return description;
+  }
+
+  abstract String readName(String type);
+}
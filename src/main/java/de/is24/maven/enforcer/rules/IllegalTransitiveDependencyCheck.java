@@ -21,11 +21,18 @@ import org.codehaus.plexus.util.StringUtils;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 
 /**
@@ -37,360 +44,945 @@ public final class IllegalTransitiveDependencyCheck implements EnforcerRule {
   private static final String NO_CACHE_ID_AVAILABLE = null;
   private static final String OUTPUT_FILE_EXTENSION = ".txt";
   private static final String OUTPUT_FILE_PREFIX = "itd-";
+  private static final String CLASSES_SNAPSHOT_FILE = "itd-classes.snapshot";
+  private static final int DEFAULT_TYPE_INDEX_CACHE_SIZE = 64;
+  private static final int DEFAULT_READ_AHEAD_MEMORY = 32;
+  private static final int DEFAULT_SHARED_TYPE_CACHE_SIZE = 64;
+  private static final String SPILL_DIRECTORY = "itd-spill";
 
-  private ArtifactResolver resolver;
+  private boolean reportOnly;
 
-  private ArtifactRepository localRepository;
+  private boolean listMissingArtifacts;
 
-  private DependencyGraphBuilder dependencyGraphBuilder;
+  private String[] regexIgnoredClasses;
 
-  private List<ArtifactRepository> remoteRepositories;
+  private boolean useClassesFromLastBuild;
 
-  private String outputDirectory;
+  private boolean suppressTypesFromJavaRuntime;
 
-  private MavenProject project;
+  private int threads;
 
-  private Log logger;
+  private String dependencyExtractor;
 
-  private boolean reportOnly;
+  private String analysisDepth;
 
-  private boolean listMissingArtifacts;
+  private String granularity;
 
-  private String[] regexIgnoredClasses;
+  private boolean drillDownPackages;
 
-  private boolean useClassesFromLastBuild;
+  private boolean verifyTypeNames;
 
-  private boolean suppressTypesFromJavaRuntime;
+  private String typeIndexCacheDirectory;
 
-  private ClassFilter filter;
+  private int typeIndexCacheSize = DEFAULT_TYPE_INDEX_CACHE_SIZE;
+
+  private int readerThreads;
+
+  private int readAheadMemory = DEFAULT_READ_AHEAD_MEMORY;
+
+  private int targetRelease;
+
+  private int javaRuntimeRelease;
+
+  private int sharedTypeCacheSize = DEFAULT_SHARED_TYPE_CACHE_SIZE;
+
+  private int spillHeapThreshold;
+
+  private int maxViolations;
 
 
   @Override
   public void execute(EnforcerRuleHelper helper) throws EnforcerRuleException {
-    logger = helper.getLog();
-
-    if (reportOnly) {
-      logger.info("Flag 'reportOnly' is set. Exceptions from rule will only be reported!");
+    // all state of an execution is kept apart from the rule's configuration, the modules of a parallel build may
+    // execute the same rule concurrently
+    final Execution execution = new Execution(helper);
+    try {
+      execution.run();
+    } finally {
+      execution.shutdown();
     }
+  }
 
-    if (listMissingArtifacts) {
-      logger.info("Flag 'listMissingArtifacts' is set. Transitively used artifacts are resolved.");
-      initializeDependencyGraphBuilder(helper);
-    }
+  @Override
+  public boolean isCacheable() {
+    // the enforcer asks for the cache id before execute() and shares its cache among all modules of the build, the
+    // analyzed classes and dependencies are unknown by then, results are reused by execute() instead
+    return false;
+  }
 
-    if (useClassesFromLastBuild) {
-      logger.info("Flag 'useClassesFromLastBuild' is set. Try to use existing output folder.");
-    }
+  @Override
+  public boolean isResultValid(EnforcerRule enforcerRule) {
+    return false;
+  }
 
-    if (suppressTypesFromJavaRuntime) {
-      logger.info(
-        "Flag 'suppressTypesFromJavaRuntime' is set. Classes available in current Java-runtime will be ignored.");
-    }
+  @Override
+  public String getCacheId() {
+    return NO_CACHE_ID_AVAILABLE;
+  }
 
-    initializeArtifactResolver(helper);
+  public void setListMissingArtifacts(boolean listMissingArtifacts) {
+    this.listMissingArtifacts = listMissingArtifacts;
+  }
 
-    initializeProject(helper);
+  public void setReportOnly(boolean reportOnly) {
+    this.reportOnly = reportOnly;
+  }
 
-    final Artifact artifact = resolveArtifact();
+  public void setRegexIgnoredClasses(String[] regexIgnoredClasses) {
+    this.regexIgnoredClasses = regexIgnoredClasses;
+  }
 
-    // skip analyzes if the artifact has no associated file..
-    if (artifact.getFile() == null) {
-      logger.info("Nothing to analyze in '" + artifact.getId() + "'.");
-      return;
-    }
+  public void setUseClassesFromLastBuild(boolean useClassesFromLastBuild) {
+    this.useClassesFromLastBuild = useClassesFromLastBuild;
+  }
+
+  public void setSuppressTypesFromJavaRuntime(boolean suppressTypesFromJavaRuntime) {
+    this.suppressTypesFromJavaRuntime = suppressTypesFromJavaRuntime;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
 
-    // initialize the suppression filter
-    filter = new ClassFilter(logger, suppressTypesFromJavaRuntime, regexIgnoredClasses);
+  public void setDependencyExtractor(String dependencyExtractor) {
+    this.dependencyExtractor = dependencyExtractor;
+  }
 
-    final Repository artifactClassesRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
-      true,
-      filter)
-      .analyzeArtifacts(Collections.singleton(artifact));
+  public void setAnalysisDepth(String analysisDepth) {
+    this.analysisDepth = analysisDepth;
+  }
 
-    final Set<Artifact> dependencies = resolveDirectDependencies(artifact);
+  public void setGranularity(String granularity) {
+    this.granularity = granularity;
+  }
 
-    final Repository dependenciesClassesRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
-      false,
-      filter)
-      .analyzeArtifacts(dependencies);
+  public void setDrillDownPackages(boolean drillDownPackages) {
+    this.drillDownPackages = drillDownPackages;
+  }
 
-    if (logger.isDebugEnabled()) {
-      logger.debug("Artifact's type dependencies are: " + artifactClassesRepository.getDependencies());
-      logger.debug("Classes defined in direct dependencies are: " + dependenciesClassesRepository.getTypes());
-    }
+  public void setVerifyTypeNames(boolean verifyTypeNames) {
+    this.verifyTypeNames = verifyTypeNames;
+  }
+
+  public void setTypeIndexCacheDirectory(String typeIndexCacheDirectory) {
+    this.typeIndexCacheDirectory = typeIndexCacheDirectory;
+  }
+
+  public void setTypeIndexCacheSize(int typeIndexCacheSize) {
+    this.typeIndexCacheSize = typeIndexCacheSize;
+  }
 
-    final Set<String> unresolvedTypes = new HashSet<String>(artifactClassesRepository.getDependencies());
-    unresolvedTypes.removeAll(artifactClassesRepository.getTypes());
-    unresolvedTypes.removeAll(dependenciesClassesRepository.getTypes());
+  public void setReaderThreads(int readerThreads) {
+    this.readerThreads = readerThreads;
+  }
 
-    // traverse transitive dependencies to find the artifact a certain class is loaded from
-    if (unresolvedTypes.isEmpty()) {
-      logger.info("No illegal transitive dependencies found in '" + artifact.getId() + "'.");
-    } else {
-      final String message = buildOutput(artifact, unresolvedTypes);
+  public void setReadAheadMemory(int readAheadMemory) {
+    this.readAheadMemory = readAheadMemory;
+  }
 
-      writeOutputFile(artifact, message);
+  public void setTargetRelease(int targetRelease) {
+    this.targetRelease = targetRelease;
+  }
+
+  public void setJavaRuntimeRelease(int javaRuntimeRelease) {
+    this.javaRuntimeRelease = javaRuntimeRelease;
+  }
+
+  public void setSharedTypeCacheSize(int sharedTypeCacheSize) {
+    this.sharedTypeCacheSize = sharedTypeCacheSize;
+  }
+
+  public void setSpillHeapThreshold(int spillHeapThreshold) {
+    this.spillHeapThreshold = spillHeapThreshold;
+  }
+
+  public void setMaxViolations(int maxViolations) {
+    this.maxViolations = maxViolations;
+  }
+
+  private final class Execution {
+    private final Log logger;
+    private final int analyzerThreads;
+    private final long readAheadBytes;
+    private final DependencyExtractor extractor;
+    private final AnalysisDepth depth;
+    private final DependencyGraphBuilder dependencyGraphBuilder;
+    private final ArtifactResolver resolver;
+    private final MavenProject project;
+    private final ArtifactRepository localRepository;
+    private final List<ArtifactRepository> remoteRepositories;
+    private final String outputDirectory;
+    private final ClassFilter filter;
+    private final TypeIndexCache typeIndexCache;
+    private final SharedTypeCache sharedTypeCache;
+    private final AnalysisResults analysisResults;
+    private final AnalysisExecutor executor;
+    private Set<Artifact> transitiveDependencies;
+
+    @SuppressWarnings("unchecked")
+    private Execution(EnforcerRuleHelper helper) throws EnforcerRuleException {
+      logger = helper.getLog();
 
       if (reportOnly) {
-        logger.error(message);
+        logger.info("Flag 'reportOnly' is set. Exceptions from rule will only be reported!");
+      }
+
+      if (listMissingArtifacts) {
+        logger.info("Flag 'listMissingArtifacts' is set. Transitively used artifacts are resolved.");
+        dependencyGraphBuilder = lookupDependencyGraphBuilder(helper);
       } else {
-        throw new EnforcerRuleException(message);
+        dependencyGraphBuilder = null;
+      }
+
+      if (useClassesFromLastBuild) {
+        logger.info("Flag 'useClassesFromLastBuild' is set. Try to use existing output folder.");
+      }
+
+      if (verifyTypeNames) {
+        logger.info("Flag 'verifyTypeNames' is set. Types of direct dependencies are read from their class files.");
+      }
+
+      // without a release of its own the suppressed Java runtime follows the release of the multi-release JARs
+      final int runtimeRelease = (javaRuntimeRelease > 0) ? javaRuntimeRelease : targetRelease;
+      if (suppressTypesFromJavaRuntime) {
+        logger.info(
+          "Flag 'suppressTypesFromJavaRuntime' is set. Classes available in current Java-runtime will be ignored.");
+        if (runtimeRelease > 0) {
+          logger.info("Classes of the Java runtime are taken from Java release " + runtimeRelease + ".");
+        }
+      }
+
+      analyzerThreads = (threads > 0) ? threads : determineDegreeOfConcurrency(helper);
+      if (analyzerThreads > 1) {
+        logger.info("Artifacts will be analyzed using " + analyzerThreads + " threads.");
+      }
+
+      if (readerThreads > 0) {
+        logger.info("Class files will be read by " + readerThreads + " threads ahead of parsing (max. " +
+          readAheadMemory + " MB).");
+      }
+      readAheadBytes = readAheadMemory * 1024L * 1024L;
+
+      if (maxViolations > 0) {
+        logger.info("Analysis stops after " + maxViolations + " illegal transitive dependencies.");
+      }
+
+      if (targetRelease > 0) {
+        logger.info("Multi-release JARs are analyzed for Java release " + targetRelease + ".");
+      }
+
+      extractor = parseDependencyExtractor();
+      depth = parseAnalysisDepth();
+
+      resolver = lookupArtifactResolver(helper);
+
+      try {
+        project = (MavenProject) helper.evaluate("${project}");
+
+        localRepository = (ArtifactRepository) helper.evaluate("${localRepository}");
+        remoteRepositories = (List<ArtifactRepository>) helper.evaluate("${project.remoteArtifactRepositories}");
+
+        outputDirectory = (String) helper.evaluate("${project.build.directory}");
+
+      } catch (ExpressionEvaluationException e) {
+        throw new EnforcerRuleException("Unable to locate Maven project and/or repositories!", e);
       }
+      logger.debug("Analyze project '" + project + "'.");
+
+      typeIndexCache = initializeTypeIndexCache();
+
+      // initialize the suppression filter, the Java runtime's types are collected once per runtime
+      filter = new ClassFilter(logger,
+        suppressTypesFromJavaRuntime ? JavaRuntimeTypes.forRelease(logger, runtimeRelease, typeIndexCache) : null,
+        parseGranularity(),
+        regexIgnoredClasses);
+      sharedTypeCache = initializeSharedTypeCache(helper);
+      analysisResults = initializeAnalysisResults(helper);
+
+      // all analyses of the execution share its threads, the parsers of a pipeline run next to its readers
+      executor = ((analyzerThreads > 1) || (readerThreads > 0))
+        ? new AnalysisExecutor(analyzerThreads + Math.max(0, readerThreads)) : null;
     }
-  }
 
-  @SuppressWarnings("unchecked")
-  private Set<Artifact> resolveTransitiveDependencies(Artifact artifact) throws EnforcerRuleException {
-    final DependencyNode root;
-    try {
-      root = dependencyGraphBuilder.buildDependencyGraph(project, null);
-    } catch (DependencyGraphBuilderException e) {
-      throw new EnforcerRuleException("Unable to build the dependency graph!", e);
+    private void shutdown() {
+      if (executor != null) {
+        executor.shutdown();
+      }
     }
-    if (logger.isDebugEnabled()) {
-      logger.debug("Root node is '" + root + "'.");
+
+    private void run() throws EnforcerRuleException {
+      final Artifact artifact = resolveArtifact();
+
+      // skip analyzes if the artifact has no associated file..
+      if (artifact.getFile() == null) {
+        logger.info("Nothing to analyze in '" + artifact.getId() + "'.");
+        return;
+      }
+
+      final Set<Artifact> dependencies = resolveDirectDependencies(artifact);
+
+      final long startTime = System.currentTimeMillis();
+      final AnalysisFingerprint fingerprint = (analysisResults == null) ? null
+        : fingerprintAnalysis(artifact, dependencies);
+      String message = reuseEarlierResult(artifact, fingerprint);
+      if (message == null) {
+        message = analyze(artifact, dependencies);
+        if (fingerprint != null) {
+          final String transitiveDependenciesFingerprint = (transitiveDependencies == null) ? null
+            : new AnalysisFingerprint().addArtifacts(transitiveDependencies).toHexString();
+          analysisResults.put(fingerprint.toHexString(),
+            new AnalysisResults.Result(startTime, message, transitiveDependenciesFingerprint));
+        }
+        if (sharedTypeCache != null) {
+          logger.info(sharedTypeCache.describeStatistics());
+        }
+      } else {
+        logger.info("Classes and dependencies of '" + artifact.getId() +
+          "' are unchanged since an earlier execution, reuse its result.");
+      }
+
+      if (message.length() == 0) {
+        logger.info("No illegal transitive dependencies found in '" + artifact.getId() + "'.");
+      } else {
+        writeOutputFile(artifact, message);
+
+        if (reportOnly) {
+          logger.error(message);
+        } else {
+          throw new EnforcerRuleException(message);
+        }
+      }
     }
 
-    final Set<Artifact> transitiveDependencies = new HashSet<Artifact>();
-    traverseDependencyNodes(root, transitiveDependencies);
+    // returns the report of the illegal transitive dependencies or an empty string if there are none
+    private String analyze(Artifact artifact, Set<Artifact> dependencies) throws EnforcerRuleException {
+      final ArtifactRepositoryAnalyzer artifactAnalyzer = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        true,
+        filter)
+        .withThreads(analyzerThreads)
+        .withExecutor(executor)
+        .withDependencyExtractor(extractor)
+        .withAnalysisDepth(depth)
+        .withTypeIndexCache(typeIndexCache)
+        .withClassesSnapshot(determineClassesSnapshotFile())
+        .withPipeline(readerThreads, readAheadBytes)
+        .withTargetRelease(targetRelease);
+
+      final ArtifactRepositoryAnalyzer dependenciesAnalyzer = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        false,
+        filter)
+        .withThreads(analyzerThreads)
+        .withExecutor(executor)
+        .withDependencyExtractor(extractor)
+        .withVerifiedTypeNames(verifyTypeNames)
+        .withTypeIndexCache(typeIndexCache)
+        .withSharedTypeCache(sharedTypeCache)
+        .withPipeline(readerThreads, readAheadBytes)
+        .withTargetRelease(targetRelease);
+
+      if (maxViolations > 0) {
+        return analyzeFailingFast(artifact, dependencies, artifactAnalyzer, dependenciesAnalyzer);
+      }
+
+      final Set<String> unresolvedTypes;
+      if (spillHeapThreshold > 0) {
+        unresolvedTypes = findUnresolvedTypesSpilling(artifact, artifactAnalyzer, dependencies, dependenciesAnalyzer);
+      } else {
+        // the types of the direct dependencies are never collected, they are removed from the artifact's unresolved
+        // dependencies JAR by JAR, the remaining JARs are skipped once all of them are resolved
+        final Repository artifactClassesRepository = analyzeArtifact(artifact, artifactAnalyzer);
+        unresolvedTypes = new HashSet<String>(
+          artifactClassesRepository.getUnresolvedDependencies(artifactClassesRepository));
+        dependenciesAnalyzer.removeTypesOfArtifacts(new ArrayList<Artifact>(dependencies), unresolvedTypes);
+      }
 
-    final Set<Artifact> directDependencies = resolveDirectDependencies(artifact);
-    transitiveDependencies.removeAll(directDependencies);
-    if (logger.isDebugEnabled()) {
-      logger.debug("Transitive dependencies are '" + transitiveDependencies + "'.");
+      // traverse transitive dependencies to find the artifact a certain class is loaded from
+      return unresolvedTypes.isEmpty() ? "" : buildOutput(artifact, unresolvedTypes);
     }
-    return transitiveDependencies;
-  }
 
-  private void traverseDependencyNodes(DependencyNode node, Set<Artifact> transitiveDependencies)
-    throws EnforcerRuleException {
-    final List<DependencyNode> children = node.getChildren();
-    if ((children == null) || children.isEmpty()) {
-      return;
+    // the artifact's own types and the types of the direct dependencies are indexed first, every illegal transitive
+    // dependency is reported as soon as the streamed classes of the artifact refer to it
+    private String analyzeFailingFast(Artifact artifact, Set<Artifact> dependencies,
+                                      ArtifactRepositoryAnalyzer artifactAnalyzer,
+                                      ArtifactRepositoryAnalyzer dependenciesAnalyzer)
+      throws EnforcerRuleException {
+      final Repository knownTypes = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, filter)
+        .withThreads(analyzerThreads)
+        .withExecutor(executor)
+        .withTargetRelease(targetRelease)
+        .analyzeArtifacts(Collections.singleton(artifact));
+      knownTypes.addAll(dependenciesAnalyzer.analyzeArtifacts(dependencies));
+
+      final ViolationListener violationListener = new ViolationListener(artifact, knownTypes.getTypes());
+      boolean stopped = false;
+      try {
+        artifactAnalyzer.withDependencyListener(violationListener)
+          .analyzeArtifacts(Collections.singleton(artifact));
+      } catch (ViolationLimitReachedException e) {
+        logger.warn("Stopped analysis of '" + artifact.getId() + "' after " + maxViolations + " illegal transitive " +
+          filter.getGranularity().getDescription() + " dependencies.");
+        stopped = true;
+      }
+
+      final Set<String> unresolvedTypes = violationListener.getViolations();
+      if (unresolvedTypes.isEmpty()) {
+        return "";
+      }
+
+      final String output = buildOutput(artifact, unresolvedTypes);
+      return stopped ? (output + "Analysis stopped after 'maxViolations' (" + maxViolations + ") illegal transitive " +
+        filter.getGranularity().getDescription() + " dependencies, there may be more.\n") : output;
     }
-    for (DependencyNode child : children) {
-      final Artifact artifact = child.getArtifact();
-      enforceArtifactResolution(artifact);
+
+    private Repository analyzeArtifact(Artifact artifact, ArtifactRepositoryAnalyzer artifactAnalyzer) {
+      final Repository artifactClassesRepository = artifactAnalyzer.analyzeArtifacts(Collections.singleton(artifact));
       if (logger.isDebugEnabled()) {
-        logger.debug("Add dependency '" + artifact.getId() + "'");
+        logger.debug("Artifact's type dependencies are: " + artifactClassesRepository.getDependencies());
       }
-      transitiveDependencies.add(artifact);
-      traverseDependencyNodes(child, transitiveDependencies);
+      return artifactClassesRepository;
     }
-  }
 
-  @SuppressWarnings("unchecked")
-  private Set<Artifact> resolveDirectDependencies(Artifact artifact) {
-    final Set<Artifact> dependencies = new HashSet<Artifact>(project.getDependencyArtifacts());
-    dependencies.remove(artifact);
-    if (logger.isDebugEnabled()) {
-      logger.debug("Direct dependencies are '" + dependencies + "'.");
+    // the artifact's dependencies and the types of the direct dependencies are spilled to sorted runs on disk, each of
+    // them once it takes half of the threshold, the artifact's classes are released before its dependencies are read
+    private Set<String> findUnresolvedTypesSpilling(Artifact artifact, ArtifactRepositoryAnalyzer artifactAnalyzer,
+                                                    Set<Artifact> dependencies,
+                                                    ArtifactRepositoryAnalyzer dependenciesAnalyzer) {
+      final File spillDirectory = new File((outputDirectory != null) ? outputDirectory
+        : System.getProperty("java.io.tmpdir"), SPILL_DIRECTORY);
+      final long memoryThreshold = spillHeapThreshold * 1024L * 1024L / 2;
+      final SpilledTypes candidateTypes = new SpilledTypes(spillDirectory, memoryThreshold, logger);
+      final SpilledTypes dependencyTypes = new SpilledTypes(spillDirectory, memoryThreshold, logger);
+      try {
+        spillUnresolvedTypesOfArtifact(artifact, artifactAnalyzer, candidateTypes);
+        dependenciesAnalyzer.spillTypesOfArtifacts(new ArrayList<Artifact>(dependencies), dependencyTypes);
+        return new LinkedHashSet<String>(dependencyTypes.findUnknownTypes(candidateTypes));
+      } finally {
+        candidateTypes.delete();
+        dependencyTypes.delete();
+      }
     }
-    return dependencies;
-  }
 
-  @SuppressWarnings("unchecked")
-  private void initializeProject(ExpressionEvaluator helper) throws EnforcerRuleException {
-    try {
-      project = (MavenProject) helper.evaluate("${project}");
+    private void spillUnresolvedTypesOfArtifact(Artifact artifact, ArtifactRepositoryAnalyzer artifactAnalyzer,
+                                                SpilledTypes candidateTypes) {
+      final Repository artifactClassesRepository = analyzeArtifact(artifact, artifactAnalyzer);
+      candidateTypes.addAll(artifactClassesRepository.getUnresolvedDependencies(artifactClassesRepository));
+    }
 
-      localRepository = (ArtifactRepository) helper.evaluate("${localRepository}");
-      remoteRepositories = (List<ArtifactRepository>) helper.evaluate("${project.remoteArtifactRepositories}");
+    // the configuration, the artifact and its direct dependencies, the classes of directories aren't listed
+    private AnalysisFingerprint fingerprintAnalysis(Artifact artifact, Set<Artifact> dependencies) {
+      return new AnalysisFingerprint()
+        .add(filter.getFingerprint())
+        .add(extractor.name())
+        .add(depth.name())
+        .add(verifyTypeNames)
+        .add(targetRelease)
+        .add(listMissingArtifacts)
+        .add(maxViolations)
+        .add(drillDownPackages)
+        .addArtifact(artifact)
+        .addArtifacts(dependencies);
+    }
 
-      outputDirectory = (String) helper.evaluate("${project.build.directory}");
+    // returns the report of an earlier execution of this session with the same inputs or null if there is none
+    private String reuseEarlierResult(Artifact artifact, AnalysisFingerprint fingerprint)
+      throws EnforcerRuleException {
+      if (fingerprint == null) {
+        return null;
+      }
 
-    } catch (ExpressionEvaluationException e) {
-      throw new EnforcerRuleException("Unable to locate Maven project and/or repositories!", e);
+      final AnalysisResults.Result result = analysisResults.get(fingerprint.toHexString());
+      if ((result == null) || !result.isValidFor(fingerprint)) {
+        return null;
+      }
+
+      // the report lists the artifacts of the transitive dependencies, these are resolved the same way once more
+      if (result.getTransitiveDependencies() != null) {
+        final AnalysisFingerprint transitiveDependenciesFingerprint = new AnalysisFingerprint()
+          .addArtifacts(resolveTransitiveDependencies(artifact));
+        if (!transitiveDependenciesFingerprint.toHexString().equals(result.getTransitiveDependencies()) ||
+            !result.isValidFor(transitiveDependenciesFingerprint)) {
+          return null;
+        }
+      }
+      return result.getReport();
     }
-    logger.debug("Analyze project '" + project + "'.");
-  }
 
-  private void initializeArtifactResolver(EnforcerRuleHelper helper) throws EnforcerRuleException {
-    try {
-      resolver = (ArtifactResolver) helper.getComponent(ArtifactResolver.class);
-    } catch (ComponentLookupException e) {
-      throw new EnforcerRuleException("Unable to lookup artifact resolver!", e);
+    // the transitive dependencies are resolved once per execution
+    private Set<Artifact> resolveTransitiveDependencies(Artifact artifact) throws EnforcerRuleException {
+      if (transitiveDependencies == null) {
+        transitiveDependencies = Collections.unmodifiableSet(findTransitiveDependencies(artifact));
+      }
+      return transitiveDependencies;
     }
-  }
 
-  private void initializeDependencyGraphBuilder(EnforcerRuleHelper helper) throws EnforcerRuleException {
-    try {
-      dependencyGraphBuilder = helper.getContainer().lookup(DependencyGraphBuilder.class, "default");
-    } catch (ComponentLookupException e) {
-      throw new EnforcerRuleException("Unable to lookup dependency graph builder!", e);
+    private Set<Artifact> findTransitiveDependencies(Artifact artifact) throws EnforcerRuleException {
+      // Maven has usually resolved the project's artifacts already, the dependency graph is built only if it hasn't
+      Set<Artifact> transitiveDependencies = collectResolvedArtifacts(artifact);
+      if (transitiveDependencies == null) {
+        final DependencyNode root;
+        try {
+          root = dependencyGraphBuilder.buildDependencyGraph(project, null);
+        } catch (DependencyGraphBuilderException e) {
+          throw new EnforcerRuleException("Unable to build the dependency graph!", e);
+        }
+        if (logger.isDebugEnabled()) {
+          logger.debug("Root node is '" + root + "'.");
+        }
+
+        transitiveDependencies = new HashSet<Artifact>();
+        traverseDependencyNodes(root, transitiveDependencies);
+      }
+
+      final Set<Artifact> directDependencies = resolveDirectDependencies(artifact);
+      transitiveDependencies.removeAll(directDependencies);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Transitive dependencies are '" + transitiveDependencies + "'.");
+      }
+      return transitiveDependencies;
     }
-  }
 
-  private Artifact resolveArtifact() throws EnforcerRuleException {
-    final Artifact artifact = project.getArtifact();
-    logger.info("Analyze dependencies of artifact '" + artifact.getId() + "'.");
+    // the project's resolved artifacts or null if Maven hasn't resolved all of them: Maven resolves the scope a plugin
+    // asks for only, so every direct dependency must be among them and every trail must lead from the project through
+    // resolved artifacts
+    @SuppressWarnings("unchecked")
+    private Set<Artifact> collectResolvedArtifacts(Artifact artifact) {
+      final Set<Artifact> artifacts = project.getArtifacts();
+      if ((artifacts == null) || artifacts.isEmpty()) {
+        return null;
+      }
+
+      final Set<String> resolvedIds = new HashSet<String>();
+      final Set<String> resolvedConflictIds = new HashSet<String>();
+      for (Artifact resolvedArtifact : artifacts) {
+        if (!resolvedArtifact.isResolved() || (resolvedArtifact.getFile() == null)) {
+          logger.debug("Artifact '" + resolvedArtifact.getId() + "' hasn't been resolved, build the dependency graph.");
+          return null;
+        }
+        resolvedIds.add(resolvedArtifact.getId());
+        resolvedConflictIds.add(resolvedArtifact.getDependencyConflictId());
+      }
+
+      for (Artifact dependency : (Set<Artifact>) project.getDependencyArtifacts()) {
+        if (!resolvedConflictIds.contains(dependency.getDependencyConflictId())) {
+          logger.debug("Direct dependency '" + dependency.getId() + "' (scope '" + dependency.getScope() +
+            "') hasn't been resolved, build the dependency graph.");
+          return null;
+        }
+      }
 
-    // use the current project's target/classes directory as fake artifact..
-    if (useClassesFromLastBuild) {
-      final File targetClassesDirectory = getTargetClassesDirectory();
-      artifact.setFile(targetClassesDirectory);
-      return artifact;
+      for (Artifact resolvedArtifact : artifacts) {
+        final List<String> trail = resolvedArtifact.getDependencyTrail();
+        if (!isResolvedTrail(trail, artifact.getId(), resolvedIds)) {
+          logger.debug("Artifact '" + resolvedArtifact.getId() + "' has no resolved dependency trail (" + trail +
+            "), build the dependency graph.");
+          return null;
+        }
+        if (logger.isDebugEnabled()) {
+          logger.debug("Add resolved dependency '" + resolvedArtifact.getId() + "' with trail " + trail + ".");
+        }
+      }
+      logger.debug("Use the " + artifacts.size() + " artifacts resolved by Maven.");
+      return new HashSet<Artifact>(artifacts);
     }
 
-    return enforceArtifactResolution(artifact);
-  }
+    // a trail starts at the project and leads through resolved artifacts to the artifact itself
+    private boolean isResolvedTrail(List<String> trail, String projectId, Set<String> resolvedIds) {
+      if ((trail == null) || (trail.size() < 2) || !projectId.equals(trail.get(0))) {
+        return false;
+      }
+      return resolvedIds.containsAll(trail.subList(1, trail.size()));
+    }
 
-  private File getTargetClassesDirectory() {
-    final Build build = project.getBuild();
-    if (build != null) {
-      final String classesOutputDirectory = build.getOutputDirectory();
-      if (StringUtils.isNotEmpty(classesOutputDirectory)) {
-        final File targetClasses = new File(classesOutputDirectory);
-        if (targetClasses.isDirectory() && (targetClasses.list().length > 0)) {
-          logger.debug("Found valid target/classes directory '" + targetClasses.getAbsolutePath() + "'.");
-          return targetClasses;
+    private void traverseDependencyNodes(DependencyNode node, Set<Artifact> transitiveDependencies)
+      throws EnforcerRuleException {
+      final List<DependencyNode> children = node.getChildren();
+      if ((children == null) || children.isEmpty()) {
+        return;
+      }
+      for (DependencyNode child : children) {
+        final Artifact artifact = child.getArtifact();
+        enforceArtifactResolution(artifact);
+        if (logger.isDebugEnabled()) {
+          logger.debug("Add dependency '" + artifact.getId() + "'");
         }
+        transitiveDependencies.add(artifact);
+        traverseDependencyNodes(child, transitiveDependencies);
       }
     }
-    logger.debug("No target/classes directory found.");
-    return null;
-  }
 
-  private Artifact enforceArtifactResolution(Artifact artifact) throws EnforcerRuleException {
-    logger.debug("Enforce artifact resolution for project '" + project + "'.");
-    try {
-      resolver.resolve(artifact, remoteRepositories, localRepository);
-      return artifact;
-    } catch (AbstractArtifactResolutionException e) {
-      final String error = "Unable to resolve artifact '" + artifact.getId() + "'!";
-      logger.error(error, e);
-      throw new EnforcerRuleException(error, e);
+    @SuppressWarnings("unchecked")
+    private Set<Artifact> resolveDirectDependencies(Artifact artifact) {
+      final Set<Artifact> dependencies = new HashSet<Artifact>(project.getDependencyArtifacts());
+      dependencies.remove(artifact);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Direct dependencies are '" + dependencies + "'.");
+      }
+      return dependencies;
+    }
+
+    private ArtifactResolver lookupArtifactResolver(EnforcerRuleHelper helper) throws EnforcerRuleException {
+      try {
+        return (ArtifactResolver) helper.getComponent(ArtifactResolver.class);
+      } catch (ComponentLookupException e) {
+        throw new EnforcerRuleException("Unable to lookup artifact resolver!", e);
+      }
     }
-  }
 
-  private String buildOutput(Artifact artifact, Set<String> unresolvedTypes) throws EnforcerRuleException {
-    final StringBuilder output = new StringBuilder();
-    output.append("Found ")
-      .append(unresolvedTypes.size())
-      .append(" illegal transitive type dependencies in artifact '")
-      .append(artifact.getId())
-      .append("':\n");
 
-    final List<String> illegalTransitiveDependencies;
-    if (listMissingArtifacts) {
-      illegalTransitiveDependencies = new ArrayList<String>(
-        findArtifactsForUnresolvedTypes(artifact, unresolvedTypes));
-    } else {
-      illegalTransitiveDependencies = new ArrayList<String>(unresolvedTypes);
+    private DependencyExtractor parseDependencyExtractor() throws EnforcerRuleException {
+      if (StringUtils.isEmpty(dependencyExtractor)) {
+        return DependencyExtractor.ASM;
+      }
+
+      try {
+        final DependencyExtractor extractor = DependencyExtractor.valueOf(dependencyExtractor.trim().toUpperCase());
+        logger.info("Type dependencies are extracted by engine '" + extractor + "'.");
+        return extractor;
+      } catch (IllegalArgumentException e) {
+        throw new EnforcerRuleException("Unknown dependency extractor '" + dependencyExtractor + "', use one of " +
+          Arrays.toString(DependencyExtractor.values()) + "!", e);
+      }
     }
 
-    Collections.sort(illegalTransitiveDependencies);
+    private AnalysisDepth parseAnalysisDepth() throws EnforcerRuleException {
+      if (StringUtils.isEmpty(analysisDepth)) {
+        return AnalysisDepth.FULL;
+      }
 
-    int k = 1;
-    for (String illegalTransitiveDependency : illegalTransitiveDependencies) {
-      output.append(k).append(".) ").append(illegalTransitiveDependency).append("\n");
-      k++;
+      try {
+        final AnalysisDepth depth = AnalysisDepth.valueOf(analysisDepth.trim().toUpperCase());
+        logger.info("Classes of the artifact are analyzed to depth '" + depth + "'.");
+        return depth;
+      } catch (IllegalArgumentException e) {
+        throw new EnforcerRuleException("Unknown analysis depth '" + analysisDepth + "', use one of " +
+          Arrays.toString(AnalysisDepth.values()) + "!", e);
+      }
     }
-    return output.toString();
-  }
 
-  private Set<String> findArtifactsForUnresolvedTypes(Artifact artifact, Set<String> unresolvedTypes)
-    throws EnforcerRuleException {
-    final Set<Artifact> transitiveDependencies = resolveTransitiveDependencies(artifact);
-    final Set<String> unresolvedTypesWithArtifact = new HashSet<String>();
+    private Granularity parseGranularity() throws EnforcerRuleException {
+      if (StringUtils.isEmpty(granularity)) {
+        return Granularity.CLASS;
+      }
 
-    for (Artifact transitiveDependency : transitiveDependencies) {
-      // skip further artifacts if all types have been found
-      if (unresolvedTypesWithArtifact.size() == unresolvedTypes.size()) {
-        break;
+      try {
+        final Granularity parsedGranularity = Granularity.valueOf(granularity.trim().toUpperCase());
+        logger.info("Dependencies are checked by " + parsedGranularity.getDescription() + ".");
+        return parsedGranularity;
+      } catch (IllegalArgumentException e) {
+        throw new EnforcerRuleException("Unknown granularity '" + granularity + "', use one of " +
+          Arrays.toString(Granularity.values()) + "!", e);
       }
+    }
 
-      final Repository repository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
-        false,
-        filter)
-        .analyzeArtifacts(Collections.singleton(transitiveDependency));
+    private TypeIndexCache initializeTypeIndexCache() {
+      if (StringUtils.isEmpty(typeIndexCacheDirectory)) {
+        return null;
+      }
 
-      final Set<String> repositoryTypes = repository.getTypes();
-      for (String unresolvedType : unresolvedTypes) {
-        if (repositoryTypes.contains(unresolvedType)) {
-          unresolvedTypesWithArtifact.add(unresolvedType + ", [" + transitiveDependency.getId() + "]");
+      final File cacheDirectory = new File(typeIndexCacheDirectory);
+      logger.info("Types of released artifacts are cached in directory '" + cacheDirectory.getAbsolutePath() +
+        "' (max. " + typeIndexCacheSize + " MB).");
+      return new TypeIndexCache(cacheDirectory, typeIndexCacheSize * 1024L * 1024L, logger);
+    }
+
+    private AnalysisResults initializeAnalysisResults(ExpressionEvaluator helper) {
+      // the results are reused by the executions of the same session only
+      try {
+        final Object session = helper.evaluate("${session}");
+        if (session != null) {
+          return AnalysisResults.forSession(session);
         }
+      } catch (ExpressionEvaluationException e) {
+        logger.debug("Unable to determine Maven's session, the results of earlier executions are not reused.");
       }
+      return null;
+    }
+
+    private SharedTypeCache initializeSharedTypeCache(ExpressionEvaluator helper) {
+      if (sharedTypeCacheSize <= 0) {
+        return null;
+      }
+
+      // the modules of a build share their session
+      try {
+        final Object session = helper.evaluate("${session}");
+        if (session != null) {
+          return SharedTypeCache.forSession(session, sharedTypeCacheSize * 1024L * 1024L);
+        }
+      } catch (ExpressionEvaluationException e) {
+        logger.debug("Unable to determine Maven's session, the types of JARs are not shared between modules.");
+      }
+      return null;
     }
-    return unresolvedTypesWithArtifact;
-  }
 
-  private void writeOutputFile(Artifact artifact, String output) throws EnforcerRuleException {
-    if (outputDirectory == null) {
-      logger.warn("Project's output directory has not been set, skip writing!");
-      return;
+    private int determineDegreeOfConcurrency(ExpressionEvaluator helper) {
+      // Maven 3 exposes the '-T' option through the session's execution request
+      try {
+        final Object session = helper.evaluate("${session}");
+        if (session != null) {
+          final Method getRequest = session.getClass().getMethod("getRequest");
+          final Object request = getRequest.invoke(session);
+          final Method getDegreeOfConcurrency = request.getClass().getMethod("getDegreeOfConcurrency");
+          final Object degreeOfConcurrency = getDegreeOfConcurrency.invoke(request);
+          if ((degreeOfConcurrency instanceof Integer) && ((Integer) degreeOfConcurrency > 1)) {
+            // the modules built concurrently share the processors
+            return Math.max(1, Runtime.getRuntime().availableProcessors() / (Integer) degreeOfConcurrency);
+          }
+        }
+      } catch (Exception e) {
+        logger.debug("Unable to determine Maven's degree of concurrency, analyze artifacts sequentially.");
+      }
+      return 1;
     }
 
-    final String outputFilePath = determineOutputFilePath(artifact);
-    final File outputFile = new File(outputFilePath);
-    final File targetFolder = outputFile.getParentFile();
-    if (!targetFolder.exists() && !targetFolder.mkdirs()) {
-      final String error = "Unable to create directory '" + targetFolder + "'!";
-      logger.error(error);
-      throw new EnforcerRuleException(error);
+    private DependencyGraphBuilder lookupDependencyGraphBuilder(EnforcerRuleHelper helper)
+      throws EnforcerRuleException {
+      try {
+        return helper.getContainer().lookup(DependencyGraphBuilder.class, "default");
+      } catch (ComponentLookupException e) {
+        throw new EnforcerRuleException("Unable to lookup dependency graph builder!", e);
+      }
     }
 
-    FileWriter resultFileWriter = null;
-    try {
-      resultFileWriter = new FileWriter(outputFile);
-      resultFileWriter.write(output);
-    } catch (IOException e) {
-      throw logAndWrapIOException(e, outputFilePath);
-    } finally {
-      if (resultFileWriter != null) {
-        try {
-          resultFileWriter.close();
-        } catch (IOException e) {
-          throw logAndWrapIOException(e, outputFilePath);
+
+    private Artifact resolveArtifact() throws EnforcerRuleException {
+      final Artifact artifact = project.getArtifact();
+      logger.info("Analyze dependencies of artifact '" + artifact.getId() + "'.");
+
+      // use the current project's target/classes directory as fake artifact..
+      if (useClassesFromLastBuild) {
+        final File targetClassesDirectory = getTargetClassesDirectory();
+        artifact.setFile(targetClassesDirectory);
+        return artifact;
+      }
+
+      return enforceArtifactResolution(artifact);
+    }
+
+    private File getTargetClassesDirectory() {
+      final Build build = project.getBuild();
+      if (build != null) {
+        final String classesOutputDirectory = build.getOutputDirectory();
+        if (StringUtils.isNotEmpty(classesOutputDirectory)) {
+          final File targetClasses = new File(classesOutputDirectory);
+          if (targetClasses.isDirectory() && (targetClasses.list().length > 0)) {
+            logger.debug("Found valid target/classes directory '" + targetClasses.getAbsolutePath() + "'.");
+            return targetClasses;
+          }
         }
       }
+      logger.debug("No target/classes directory found.");
+      return null;
     }
-  }
 
-  private EnforcerRuleException logAndWrapIOException(IOException e, String outputFilePath) {
-    final String error = "Unable to write output file '" + outputFilePath + "'!";
-    logger.error(error, e);
-    return new EnforcerRuleException(error, e);
-  }
+    private Artifact enforceArtifactResolution(Artifact artifact) throws EnforcerRuleException {
+      logger.debug("Enforce artifact resolution for project '" + project + "'.");
+      try {
+        resolver.resolve(artifact, remoteRepositories, localRepository);
+        return artifact;
+      } catch (AbstractArtifactResolutionException e) {
+        final String error = "Unable to resolve artifact '" + artifact.getId() + "'!";
+        logger.error(error, e);
+        throw new EnforcerRuleException(error, e);
+      }
+    }
 
-  private String determineOutputFilePath(Artifact artifact) {
-    final String separator = outputDirectory.endsWith("/") ? "" : "/";
-    final String formattedArtifactId = artifact.getId().replace(':', '-');
-    return outputDirectory + separator + OUTPUT_FILE_PREFIX + formattedArtifactId + OUTPUT_FILE_EXTENSION;
-  }
+    private String buildOutput(Artifact artifact, Set<String> unresolvedTypes) throws EnforcerRuleException {
+      final StringBuilder output = new StringBuilder();
+      output.append("Found ")
+        .append(unresolvedTypes.size())
+        .append(" illegal transitive ")
+        .append(filter.getGranularity().getDescription())
+        .append(" dependencies in artifact '")
+        .append(artifact.getId())
+        .append("':\n");
+
+      // the sorted lines of the report and the type or package each one is about
+      final Map<String, String> illegalTransitiveDependencies;
+      if (listMissingArtifacts) {
+        illegalTransitiveDependencies = findArtifactsForUnresolvedTypes(artifact, unresolvedTypes);
+      } else {
+        illegalTransitiveDependencies = new TreeMap<String, String>();
+        for (String unresolvedType : unresolvedTypes) {
+          illegalTransitiveDependencies.put(unresolvedType, unresolvedType);
+        }
+      }
 
-  @Override
-  public boolean isCacheable() {
-    return false;
-  }
+      final Map<String, Set<String>> classesOfPackages = (drillDownPackages &&
+        (filter.getGranularity() == Granularity.PACKAGE))
+        ? findClassesOfPackages(artifact, unresolvedTypes)
+        : Collections.<String, Set<String>>emptyMap();
+
+      int k = 1;
+      for (Map.Entry<String, String> illegalTransitiveDependency : illegalTransitiveDependencies.entrySet()) {
+        output.append(k).append(".) ").append(illegalTransitiveDependency.getKey()).append("\n");
+        final Set<String> classes = classesOfPackages.get(illegalTransitiveDependency.getValue());
+        if (classes != null) {
+          for (String clazz : classes) {
+            output.append("     - ").append(clazz).append("\n");
+          }
+        }
+        k++;
+      }
+      return output.toString();
+    }
 
-  @Override
-  public boolean isResultValid(EnforcerRule enforcerRule) {
-    return false;
-  }
+    // the classes of the illegally used packages the artifact refers to, its classes are analyzed once more for that
+    private Map<String, Set<String>> findClassesOfPackages(Artifact artifact, Set<String> packages) {
+      final Repository artifactClassesRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        true,
+        filter.withGranularity(Granularity.CLASS))
+        .withThreads(analyzerThreads)
+        .withExecutor(executor)
+        .withDependencyExtractor(extractor)
+        .withAnalysisDepth(depth)
+        .withTypeIndexCache(typeIndexCache)
+        .withTargetRelease(targetRelease)
+        .analyzeArtifacts(Collections.singleton(artifact));
+
+      final Map<String, Set<String>> classesOfPackages = new HashMap<String, Set<String>>();
+      for (String dependency : artifactClassesRepository.getDependencies()) {
+        final String packageName = Granularity.PACKAGE.readName(dependency);
+        if (packages.contains(packageName)) {
+          Set<String> classes = classesOfPackages.get(packageName);
+          if (classes == null) {
+            classes = new TreeSet<String>();
+            classesOfPackages.put(packageName, classes);
+          }
+          classes.add(dependency);
+        }
+      }
+      return classesOfPackages;
+    }
 
-  @Override
-  public String getCacheId() {
-    return NO_CACHE_ID_AVAILABLE;
-  }
+    private Map<String, String> findArtifactsForUnresolvedTypes(Artifact artifact, Set<String> unresolvedTypes)
+      throws EnforcerRuleException {
+      final List<Artifact> transitiveDependencies = new ArrayList<Artifact>(resolveTransitiveDependencies(artifact));
 
-  public void setListMissingArtifacts(boolean listMissingArtifacts) {
-    this.listMissingArtifacts = listMissingArtifacts;
-  }
+      // a single pass over the transitive dependencies, stopped as soon as every type has been found
+      final Map<String, Set<Artifact>> definingArtifacts = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        false,
+        filter)
+        .withThreads(analyzerThreads)
+        .withExecutor(executor)
+        .withTypeIndexCache(typeIndexCache)
+        .withSharedTypeCache(sharedTypeCache)
+        .withTargetRelease(targetRelease)
+        .findArtifactsDefiningTypes(transitiveDependencies, unresolvedTypes);
+
+      final Map<String, String> unresolvedTypesWithArtifact = new TreeMap<String, String>();
+      for (String unresolvedType : unresolvedTypes) {
+        final Set<Artifact> artifacts = definingArtifacts.get(unresolvedType);
+        if (artifacts == null) {
+          unresolvedTypesWithArtifact.put(unresolvedType, unresolvedType);
+          continue;
+        }
 
-  public void setReportOnly(boolean reportOnly) {
-    this.reportOnly = reportOnly;
-  }
+        final List<String> artifactIds = new ArrayList<String>();
+        for (Artifact definingArtifact : artifacts) {
+          artifactIds.add(definingArtifact.getId());
+        }
+        Collections.sort(artifactIds);
+        unresolvedTypesWithArtifact.put(unresolvedType + ", " + artifactIds, unresolvedType);
+      }
+      return unresolvedTypesWithArtifact;
+    }
 
-  public void setRegexIgnoredClasses(String[] regexIgnoredClasses) {
-    this.regexIgnoredClasses = regexIgnoredClasses;
-  }
+    private void writeOutputFile(Artifact artifact, String output) throws EnforcerRuleException {
+      if (outputDirectory == null) {
+        logger.warn("Project's output directory has not been set, skip writing!");
+        return;
+      }
 
-  public void setUseClassesFromLastBuild(boolean useClassesFromLastBuild) {
-    this.useClassesFromLastBuild = useClassesFromLastBuild;
+      final String outputFilePath = determineOutputFilePath(artifact);
+      final File outputFile = new File(outputFilePath);
+      final File targetFolder = outputFile.getParentFile();
+      if (!targetFolder.exists() && !targetFolder.mkdirs()) {
+        final String error = "Unable to create directory '" + targetFolder + "'!";
+        logger.error(error);
+        throw new EnforcerRuleException(error);
+      }
+
+      FileWriter resultFileWriter = null;
+      try {
+        resultFileWriter = new FileWriter(outputFile);
+        resultFileWriter.write(output);
+      } catch (IOException e) {
+        throw logAndWrapIOException(e, outputFilePath);
+      } finally {
+        if (resultFileWriter != null) {
+          try {
+            resultFileWriter.close();
+          } catch (IOException e) {
+            throw logAndWrapIOException(e, outputFilePath);
+          }
+        }
+      }
+    }
+
+    private EnforcerRuleException logAndWrapIOException(IOException e, String outputFilePath) {
+      final String error = "Unable to write output file '" + outputFilePath + "'!";
+      logger.error(error, e);
+      return new EnforcerRuleException(error, e);
+    }
+
+    private File determineClassesSnapshotFile() {
+      // the last build's classes are analyzed incrementally
+      if (useClassesFromLastBuild && (outputDirectory != null)) {
+        return new File(outputDirectory, CLASSES_SNAPSHOT_FILE);
+      }
+      return null;
+    }
+
+    private String determineOutputFilePath(Artifact artifact) {
+      final String separator = outputDirectory.endsWith("/") ? "" : "/";
+      final String formattedArtifactId = artifact.getId().replace(':', '-');
+      return outputDirectory + separator + OUTPUT_FILE_PREFIX + formattedArtifactId + OUTPUT_FILE_EXTENSION;
+    }
+
+    // collects the dependencies of the artifact which are none of the known types, aborts the analysis at the limit
+    private final class ViolationListener implements Repository.DependencyListener {
+      private final Artifact artifact;
+      private final Set<String> knownTypes;
+      private final Set<String> violations = new HashSet<String>();
+      private volatile boolean stopped;
+
+      private ViolationListener(Artifact artifact, Set<String> knownTypes) {
+        this.artifact = artifact;
+        this.knownTypes = knownTypes;
+      }
+
+      @Override
+      public void dependencyAdded(String dependency) {
+        // the other analyzer threads stop as soon as they add their next dependency
+        if (stopped) {
+          throw new ViolationLimitReachedException();
+        }
+        if (!knownTypes.contains(dependency)) {
+          addViolation(dependency);
+        }
+      }
+
+      private synchronized void addViolation(String dependency) {
+        if (!stopped && violations.add(dependency)) {
+          logger.warn("Found illegal transitive " + filter.getGranularity().getDescription() + " dependency '" +
+            dependency + "' in artifact '" + artifact.getId() + "'.");
+          stopped = violations.size() >= maxViolations;
+        }
+        if (stopped) {
+          throw new ViolationLimitReachedException();
+        }
+      }
+
+      private synchronized Set<String> getViolations() {
+        return new HashSet<String>(violations);
+      }
+    }
   }
 
-  public void setSuppressTypesFromJavaRuntime(boolean suppressTypesFromJavaRuntime) {
-    this.suppressTypesFromJavaRuntime = suppressTypesFromJavaRuntime;
+  private static final class ViolationLimitReachedException extends RuntimeException {
+    private ViolationLimitReachedException() {
+      super("Maximum number of illegal transitive dependencies reached.");
+    }
   }
 }
@@ -0,0 +1,256 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+
+// the types of the Java runtime a class filter suppresses, collected once per runtime and release as sorted array
+final class JavaRuntimeTypes {
+  private static final String JAVA_HOME = System.getProperty("java.home");
+  private static final String CLASS_SUFFIX = ".class";
+  private static final String SIGNATURE_SUFFIX = ".sig";
+  private static final String MODULES_DIRECTORY = "/modules/";
+  private static final String SYMBOL_FILE = "lib/ct.sym";
+
+  // collected types of this JVM's runtime by release, 0 is the runtime's own release
+  private static final ConcurrentMap<Integer, Loader> RUNTIME_TYPES = new ConcurrentHashMap<Integer, Loader>();
+
+  private final String description;
+  private final String[] types;
+
+  private JavaRuntimeTypes(String description, String[] types) {
+    this.description = description;
+    this.types = types;
+  }
+
+  static JavaRuntimeTypes forRelease(Log logger, int release, TypeIndexCache typeIndexCache) {
+    Loader loader = RUNTIME_TYPES.get(release);
+    if (loader == null) {
+      final Loader newLoader = new Loader(release);
+      loader = RUNTIME_TYPES.putIfAbsent(release, newLoader);
+      if (loader == null) {
+        loader = newLoader;
+      }
+    }
+    return loader.get(logger, typeIndexCache);
+  }
+
+  static JavaRuntimeTypes load(Log logger, int release, TypeIndexCache typeIndexCache) {
+    final boolean releaseFromSymbolFile = (release > 0) && (release != getRuntimeRelease()) && isModularRuntime();
+    if ((release > 0) && !releaseFromSymbolFile && (release != getRuntimeRelease())) {
+      logger.info("Types of Java release " + release + " are not available in '" + JAVA_HOME +
+        "', suppress the types of the Java runtime.");
+    }
+
+    final String description = JAVA_HOME + "|" + System.getProperty("java.version") +
+      (releaseFromSymbolFile ? "|release " + release : "");
+    final String cacheKey = "java-runtime|" + description;
+    final Repository repository = new Repository(null);
+    if ((typeIndexCache != null) && typeIndexCache.load(cacheKey, repository)) {
+      logger.debug("Read types of Java runtime '" + description + "' from type index cache.");
+      return new JavaRuntimeTypes(description, toSortedArray(repository.getTypes()));
+    }
+
+    final long start = System.currentTimeMillis();
+    final Collection<String> types = new TreeSet<String>();
+    try {
+      if (releaseFromSymbolFile) {
+        collectSymbolFileTypes(types, release);
+      } else if (isModularRuntime()) {
+        collectModuleTypes(types);
+      } else {
+        collectBootClassPathTypes(types);
+      }
+    } catch (IOException e) {
+      final String error = "Unable to collect the types of Java runtime '" + description + "'!";
+      logger.error(error, e);
+      throw new IllegalStateException(error, e);
+    }
+    logger.info("Collected " + types.size() + " types of Java runtime '" + description + "' in " +
+      (System.currentTimeMillis() - start) + " ms.");
+
+    if (typeIndexCache != null) {
+      repository.addAll(types, Collections.<String>emptyList());
+      typeIndexCache.store(cacheKey, repository);
+    }
+    return new JavaRuntimeTypes(description, toSortedArray(types));
+  }
+
+  boolean contains(String type) {
+    return Arrays.binarySearch(types, type) >= 0;
+  }
+
+  int size() {
+    return types.length;
+  }
+
+  String getDescription() {
+    return description;
+  }
+
+  private static String[] toSortedArray(Collection<String> types) {
+    final String[] sortedTypes = types.toArray(new String[types.size()]);
+    Arrays.sort(sortedTypes);
+    return sortedTypes;
+  }
+
+  private static int getRuntimeRelease() {
+    // '1.8' up to Java 8, '9', '10'... afterwards
+    final String specificationVersion = System.getProperty("java.specification.version");
+    final String release = specificationVersion.startsWith("1.") ? specificationVersion.substring(2)
+      : specificationVersion;
+    try {
+      return Integer.parseInt(release);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static boolean isModularRuntime() {
+    final URL objectClass = ClassLoader.getSystemResource("java/lang/Object.class");
+    return (objectClass != null) && "jrt".equals(objectClass.getProtocol());
+  }
+
+  private static void addType(Collection<String> types, String path, String suffix) {
+    final String type = path.substring(0, path.length() - suffix.length()).replace('/', '.');
+    if (ClassFilter.JAVA_RUNTIME_PACKAGES.matcher(type).matches() && !type.endsWith("-info")) {
+      types.add(type);
+    }
+  }
+
+  // Java 8 and earlier: the JARs of the boot class path and the extension directories within the Java home
+  private static void collectBootClassPathTypes(Collection<String> types) throws IOException {
+    final List<File> jars = new ArrayList<File>();
+    final String bootClassPath = System.getProperty("sun.boot.class.path");
+    if (bootClassPath != null) {
+      for (String path : bootClassPath.split(File.pathSeparator)) {
+        jars.add(new File(path));
+      }
+    }
+
+    final String extensionDirectories = System.getProperty("java.ext.dirs");
+    if (extensionDirectories != null) {
+      for (String path : extensionDirectories.split(File.pathSeparator)) {
+        final File[] extensionJars = new File(path).listFiles();
+        if (extensionJars != null) {
+          jars.addAll(Arrays.asList(extensionJars));
+        }
+      }
+    }
+
+    for (File jar : jars) {
+      if (jar.isFile() && jar.getAbsolutePath().startsWith(JAVA_HOME) && jar.getName().endsWith(".jar")) {
+        final ZipFile zipFile = new ZipFile(jar);
+        try {
+          final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+          while (entries.hasMoreElements()) {
+            final String entryName = entries.nextElement().getName();
+            if (entryName.endsWith(CLASS_SUFFIX)) {
+              addType(types, entryName, CLASS_SUFFIX);
+            }
+          }
+        } finally {
+          zipFile.close();
+        }
+      }
+    }
+  }
+
+  // Java 9 and later: entries '<releases>/[<module>/]<package path>/<type>.sig' of the symbol file
+  private static void collectSymbolFileTypes(Collection<String> types, int release) throws IOException {
+    final File symbolFile = new File(JAVA_HOME, SYMBOL_FILE);
+    final char releaseCharacter = Character.toUpperCase(Character.forDigit(release, Character.MAX_RADIX));
+    final ZipFile zipFile = new ZipFile(symbolFile);
+    try {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final String entryName = entries.nextElement().getName();
+        final int releasesEnd = entryName.indexOf('/');
+        if (!entryName.endsWith(SIGNATURE_SUFFIX) || (releasesEnd < 0) ||
+            (entryName.lastIndexOf(releaseCharacter, releasesEnd) < 0)) {
+          continue;
+        }
+
+        // module names contain dots, package directories don't
+        int pathStart = releasesEnd + 1;
+        final int moduleEnd = entryName.indexOf('/', pathStart);
+        if ((moduleEnd > 0) && (entryName.lastIndexOf('.', moduleEnd) > releasesEnd)) {
+          pathStart = moduleEnd + 1;
+        }
+        addType(types, entryName.substring(pathStart), SIGNATURE_SUFFIX);
+      }
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  // Java 9 and later: paths '/modules/<module>/<package path>/<type>.class' of the 'jrt:/' file system, which is
+  // accessed reflectively as this class is compiled for Java 6
+  private static void collectModuleTypes(Collection<String> types) throws IOException {
+    try {
+      final Class<?> pathClass = Class.forName("java.nio.file.Path");
+      final Class<?> fileVisitOptionClass = Class.forName("java.nio.file.FileVisitOption");
+      final Object fileSystem = Class.forName("java.nio.file.FileSystems")
+        .getMethod("getFileSystem", URI.class)
+        .invoke(null, URI.create("jrt:/"));
+      final Object modules = Class.forName("java.nio.file.FileSystem")
+        .getMethod("getPath", String.class, String[].class)
+        .invoke(fileSystem, MODULES_DIRECTORY, new String[0]);
+      final Object paths = Class.forName("java.nio.file.Files")
+        .getMethod("walk", pathClass, Array.newInstance(fileVisitOptionClass, 0).getClass())
+        .invoke(null, modules, Array.newInstance(fileVisitOptionClass, 0));
+      final Class<?> streamClass = Class.forName("java.util.stream.BaseStream");
+      try {
+        final Iterator<?> pathIterator = (Iterator<?>) streamClass.getMethod("iterator").invoke(paths);
+        while (pathIterator.hasNext()) {
+          final String path = pathIterator.next().toString();
+          final int pathStart = path.indexOf('/', MODULES_DIRECTORY.length()) + 1;
+          if ((pathStart > 0) && path.endsWith(CLASS_SUFFIX)) {
+            addType(types, path.substring(pathStart), CLASS_SUFFIX);
+          }
+        }
+      } finally {
+        streamClass.getMethod("close").invoke(paths);
+      }
+    } catch (InvocationTargetException e) {
+      throw new IOException("Unable to walk the 'jrt:/' file system!", e.getCause());
+    } catch (Exception e) {
+      throw new IOException("Unable to walk the 'jrt:/' file system!", e);
+    }
+  }
+
+  // the modules of a build ask for the types concurrently, the first one collects them while the others wait
+  private static final class Loader {
+    private final int release;
+    private JavaRuntimeTypes runtimeTypes;
+
+    private Loader(int release) {
+      this.release = release;
+    }
+
+    private synchronized JavaRuntimeTypes get(Log logger, TypeIndexCache typeIndexCache) {
+      if (runtimeTypes == null) {
+        runtimeTypes = load(logger, release, typeIndexCache);
+      }
+      return runtimeTypes;
+    }
+  }
+}
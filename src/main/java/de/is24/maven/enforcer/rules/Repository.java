@@ -1,7 +1,10 @@
 package de.is24.maven.enforcer.rules;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static java.lang.String.format;
@@ -9,33 +12,164 @@ import static java.lang.String.format;
 
 final class Repository {
 
-  private final Set<String> types = new HashSet<String>();
-  private final Set<String> dependencies = new HashSet<String>();
+  // the names are kept as bits of their ids in the filter's symbol table, they are the filter's type or package names
+  private final BitSet types = new BitSet();
+  private final BitSet dependencies = new BitSet();
 
   private final ClassFilter filter;
+  private final SymbolTable symbols;
+  private final DependencyListener listener;
 
   Repository(ClassFilter filter) {
+    this(filter, (filter != null) ? filter.getSymbolTable() : new SymbolTable());
+  }
+
+  Repository(ClassFilter filter, SymbolTable symbols) {
+    this(filter, symbols, null);
+  }
+
+  Repository(ClassFilter filter, SymbolTable symbols, DependencyListener listener) {
     this.filter = filter;
+    this.symbols = symbols;
+    this.listener = listener;
   }
 
   Set<String> getTypes() {
-    return Collections.unmodifiableSet(types);
+    return new NameSet(types);
   }
 
   Set<String> getDependencies() {
-    return Collections.unmodifiableSet(dependencies);
+    return new NameSet(dependencies);
   }
 
   void addType(String type) {
-    filter.addFiltered(types, type);
+    if (filter.isConsideredType(type)) {
+      types.set(symbols.getId(filter.readName(type)));
+    }
   }
 
   void addDependency(String type) {
-    filter.addFiltered(dependencies, type);
+    if (filter.isConsideredType(type)) {
+      setDependency(filter.readName(type));
+    }
+  }
+
+  void addAll(Repository repository) {
+    // the other repository's content has already been filtered
+    if (repository.symbols == symbols) {
+      types.or(repository.types);
+      dependencies.or(repository.dependencies);
+    } else {
+      addAll(repository.getTypes(), repository.getDependencies());
+    }
+  }
+
+  void addAll(Collection<String> filteredTypes, Collection<String> filteredDependencies) {
+    for (String type : filteredTypes) {
+      types.set(symbols.getId(type));
+    }
+    for (String dependency : filteredDependencies) {
+      setDependency(dependency);
+    }
+  }
+
+  // the dependencies which are types of none of the repositories
+  Set<String> getUnresolvedDependencies(Repository... typeRepositories) {
+    final BitSet unresolvedDependencies = (BitSet) dependencies.clone();
+    for (Repository typeRepository : typeRepositories) {
+      if (typeRepository.symbols == symbols) {
+        unresolvedDependencies.andNot(typeRepository.types);
+      } else {
+        for (String type : typeRepository.getTypes()) {
+          final int id = symbols.findId(type);
+          if (id >= 0) {
+            unresolvedDependencies.clear(id);
+          }
+        }
+      }
+    }
+    return new NameSet(unresolvedDependencies);
+  }
+
+  private void setDependency(String dependency) {
+    final int id = symbols.getId(dependency);
+    if (listener == null) {
+      dependencies.set(id);
+    } else if (!dependencies.get(id)) {
+      dependencies.set(id);
+      listener.dependencyAdded(dependency);
+    }
+  }
+
+  void clear() {
+    types.clear();
+    dependencies.clear();
   }
 
   @Override
   public String toString() {
-    return format("Repository{types=%s, dependencies=%s}", types, dependencies);
+    return format("Repository{types=%s, dependencies=%s}", getTypes(), getDependencies());
+  }
+
+  // notified about every dependency the first time it's added to a repository, merged repositories don't notify
+  interface DependencyListener {
+    void dependencyAdded(String dependency);
+  }
+
+  // read-only view of the names of a repository's bits
+  private final class NameSet extends AbstractSet<String> {
+    private final BitSet ids;
+
+    private NameSet(BitSet ids) {
+      this.ids = ids;
+    }
+
+    @Override
+    public boolean contains(Object name) {
+      if (!(name instanceof String)) {
+        return false;
+      }
+
+      final int id = symbols.findId((String) name);
+      return (id >= 0) && ids.get(id);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return ids.isEmpty();
+    }
+
+    @Override
+    public int size() {
+      return ids.cardinality();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+        private int nextId = ids.nextSetBit(0);
+
+        @Override
+        public boolean hasNext() {
+          return nextId >= 0;
+        }
+
+        @Override
+        public String next() {
+          if (nextId < 0) {
+            throw new NoSuchElementException();
+          }
+
+          final String name = symbols.getName(nextId);
+          nextId = ids.nextSetBit(nextId + 1);
+          return name;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
   }
 }
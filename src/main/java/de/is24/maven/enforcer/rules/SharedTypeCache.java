@@ -0,0 +1,159 @@
+package de.is24.maven.enforcer.rules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static java.lang.String.format;
+
+
+// keeps the types and dependencies of JARs in memory for all modules of a build, every JAR is analyzed only once
+final class SharedTypeCache {
+  // rough size of a cached name: object headers, fields and characters
+  private static final int NAME_OVERHEAD = 64;
+  private static final int BYTES_PER_CHARACTER = 2;
+
+  // one cache per build session, released together with the session
+  private static final Map<Object, SharedTypeCache> SESSION_CACHES = new WeakHashMap<Object, SharedTypeCache>();
+
+  private final long maxSize;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+  private long size;
+  private int hits;
+  private int misses;
+  private int evictions;
+
+  SharedTypeCache(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  static SharedTypeCache forSession(Object session, long maxSize) {
+    synchronized (SESSION_CACHES) {
+      SharedTypeCache cache = SESSION_CACHES.get(session);
+      if (cache == null) {
+        cache = new SharedTypeCache(maxSize);
+        SESSION_CACHES.put(session, cache);
+      }
+      return cache;
+    }
+  }
+
+  // returns the entry of the key or null if the caller has to analyze the JAR and complete the new entry
+  synchronized Entry putIfAbsent(String key, Entry newEntry) {
+    final Entry entry = entries.get(key);
+    if (entry != null) {
+      hits++;
+      return entry;
+    }
+
+    misses++;
+    entries.put(key, newEntry);
+    return null;
+  }
+
+  void complete(String key, Entry entry, Repository repository) {
+    entry.complete(repository);
+    synchronized (this) {
+      if (entries.get(key) != entry) {
+        return;
+      }
+
+      size += entry.size;
+
+      // entries still being loaded are never evicted, their analyzing threads are waited for
+      final Iterator<Entry> eldestEntries = entries.values().iterator();
+      while ((size > maxSize) && eldestEntries.hasNext()) {
+        final Entry eldestEntry = eldestEntries.next();
+        if (eldestEntry.isComplete()) {
+          eldestEntries.remove();
+          size -= eldestEntry.size;
+          evictions++;
+        }
+      }
+    }
+  }
+
+  void fail(String key, Entry entry, RuntimeException failure) {
+    synchronized (this) {
+      if (entries.get(key) == entry) {
+        entries.remove(key);
+      }
+    }
+    entry.fail(failure);
+  }
+
+  synchronized int getHits() {
+    return hits;
+  }
+
+  synchronized int getMisses() {
+    return misses;
+  }
+
+  synchronized int getEvictions() {
+    return evictions;
+  }
+
+  synchronized long getSize() {
+    return size;
+  }
+
+  synchronized String describeStatistics() {
+    return format("Shared type cache: %d hits, %d misses, %d evictions, %d JARs (%d of %d KB) cached.",
+      hits, misses, evictions, entries.size(), size / 1024, maxSize / 1024);
+  }
+
+  static final class Entry {
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    private volatile Collection<String> types;
+    private volatile Collection<String> dependencies;
+    private volatile RuntimeException failure;
+    private long size;
+
+    private void complete(Repository repository) {
+      types = Collections.unmodifiableList(new ArrayList<String>(repository.getTypes()));
+      dependencies = Collections.unmodifiableList(new ArrayList<String>(repository.getDependencies()));
+      size = estimateSize(types) + estimateSize(dependencies);
+      loaded.countDown();
+    }
+
+    private void fail(RuntimeException failure) {
+      this.failure = failure;
+      loaded.countDown();
+    }
+
+    private boolean isComplete() {
+      return loaded.getCount() == 0;
+    }
+
+    // waits for the thread analyzing the JAR
+    void addTo(Repository repository) {
+      try {
+        loaded.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the analysis of a JAR!", e);
+      }
+
+      if (failure != null) {
+        throw new IllegalStateException("Analysis of JAR failed in another module!", failure);
+      }
+      repository.addAll(types, dependencies);
+    }
+
+    private static long estimateSize(Collection<String> names) {
+      long namesSize = 0;
+      for (String name : names) {
+        namesSize += NAME_OVERHEAD + (name.length() * BYTES_PER_CHARACTER);
+      }
+      return namesSize;
+    }
+  }
+}
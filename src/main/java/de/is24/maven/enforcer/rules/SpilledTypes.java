@@ -0,0 +1,345 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+
+/**
+ * Collects types in a sorted in-memory buffer, which is written as sorted run file whenever the buffered types take
+ * more than the threshold of heap. The unknown types are found by merging the runs of the candidate types with the
+ * runs of the known types, so neither of them ever has to be in memory at once.
+ */
+final class SpilledTypes {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // every open run takes a buffer, more runs are merged into bigger ones first
+  private static final int MAX_FAN_IN = 16;
+
+  // estimated heap of a buffered type besides its characters: the string, its array and its entry of the tree
+  private static final int TYPE_OVERHEAD = 96;
+
+  private final File directory;
+  private final long memoryThreshold;
+  private final Log logger;
+
+  private final List<File> runFiles = new ArrayList<File>();
+  private final TreeSet<String> buffer = new TreeSet<String>();
+  private long bufferedBytes;
+  private long spilledTypes;
+
+  SpilledTypes(File directory, long memoryThreshold, Log logger) {
+    this.directory = directory;
+    this.memoryThreshold = memoryThreshold;
+    this.logger = logger;
+  }
+
+  synchronized void addAll(Collection<String> types) {
+    for (String type : types) {
+      if (buffer.add(type)) {
+        bufferedBytes += TYPE_OVERHEAD + 2L * type.length();
+        if (bufferedBytes > memoryThreshold) {
+          spill();
+        }
+      }
+    }
+  }
+
+  synchronized int getRuns() {
+    return runFiles.size();
+  }
+
+  // the candidate types which haven't been added, sorted
+  synchronized List<String> findUnknownTypes(SpilledTypes candidateTypes) {
+    final MergedRuns types = openTypes();
+    MergedRuns candidates = null;
+    try {
+      candidates = candidateTypes.openTypes();
+
+      final List<String> unknownTypes = new ArrayList<String>();
+      String type = types.hasNext() ? types.next() : null;
+      long candidateCount = 0;
+      while (candidates.hasNext()) {
+        final String candidateType = candidates.next();
+        candidateCount++;
+
+        // skip all types sorted before the candidate
+        while ((type != null) && (type.compareTo(candidateType) < 0)) {
+          type = types.hasNext() ? types.next() : null;
+        }
+
+        if ((type == null) || !type.equals(candidateType)) {
+          unknownTypes.add(candidateType);
+        }
+      }
+
+      if (logger.isDebugEnabled()) {
+        logger.debug("Merged " + runFiles.size() + " runs of " + spilledTypes + " spilled types and " +
+          buffer.size() + " types in memory, " + unknownTypes.size() + " of " + candidateCount +
+          " types are unknown.");
+      }
+      return unknownTypes;
+    } finally {
+      types.close();
+      if (candidates != null) {
+        candidates.close();
+      }
+    }
+  }
+
+  synchronized void delete() {
+    deleteRunFiles(runFiles);
+    runFiles.clear();
+    buffer.clear();
+    bufferedBytes = 0;
+  }
+
+  // the sorted types of the buffer and all runs, the caller closes them
+  private synchronized MergedRuns openTypes() {
+    mergeRuns();
+    return new MergedRuns(buffer.iterator(), runFiles);
+  }
+
+  private void spill() {
+    final File runFile = writeRun(buffer.iterator());
+    runFiles.add(runFile);
+
+    spilledTypes += buffer.size();
+    logger.info("Types exceed " + (memoryThreshold / 1024) + " KB of heap, spilled " + buffer.size() +
+      " types to '" + runFile + "'.");
+    buffer.clear();
+    bufferedBytes = 0;
+  }
+
+  // merges the oldest runs into one until all runs can be merged at once
+  private void mergeRuns() {
+    while (runFiles.size() > MAX_FAN_IN) {
+      final List<File> mergedFiles = new ArrayList<File>(runFiles.subList(0, MAX_FAN_IN));
+      final MergedRuns mergedRuns = new MergedRuns(null, mergedFiles);
+      final File runFile;
+      try {
+        runFile = writeRun(mergedRuns);
+      } finally {
+        mergedRuns.close();
+      }
+
+      runFiles.subList(0, MAX_FAN_IN).clear();
+      runFiles.add(runFile);
+      deleteRunFiles(mergedFiles);
+    }
+  }
+
+  // every type is preceded by a flag, the end of the run by its negation
+  private File writeRun(Iterator<String> types) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalStateException("Unable to create directory '" + directory + "' for spilled types!");
+    }
+
+    File runFile = null;
+    DataOutputStream output = null;
+    boolean written = false;
+    try {
+      runFile = File.createTempFile("itd-types-", ".run", directory);
+
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), BUFFER_SIZE));
+      while (types.hasNext()) {
+        output.writeBoolean(true);
+        output.writeUTF(types.next());
+      }
+      output.writeBoolean(false);
+      output.close();
+      written = true;
+      return runFile;
+    } catch (IOException e) {
+      final String error = "Unable to spill types to '" + runFile + "'!";
+      logger.error(error, e);
+      throw new IllegalStateException(error, e);
+    } finally {
+      // an incomplete run is no run
+      if (!written) {
+        IOUtil.close(output);
+        if ((runFile != null) && !runFile.delete()) {
+          logger.warn("Unable to delete spilled types '" + runFile + "'!");
+        }
+      }
+    }
+  }
+
+  private void deleteRunFiles(List<File> files) {
+    for (File runFile : files) {
+      if (!runFile.delete()) {
+        logger.warn("Unable to delete spilled types '" + runFile + "'!");
+      }
+    }
+  }
+
+  // a sorted source of types with its current type
+  private static final class Run {
+    private final Iterator<String> types;
+    private String head;
+
+    private Run(Iterator<String> types) {
+      this.types = types;
+    }
+
+    private boolean advance() {
+      if (!types.hasNext()) {
+        head = null;
+        return false;
+      }
+      head = types.next();
+      return true;
+    }
+
+    private void close() {
+      if (types instanceof RunFileIterator) {
+        ((RunFileIterator) types).close();
+      }
+    }
+  }
+
+  // the types of several sorted sources in order, a type found in several of them is returned once
+  private final class MergedRuns implements Iterator<String> {
+    private final List<Run> runs = new ArrayList<Run>();
+    private final PriorityQueue<Run> pendingRuns = new PriorityQueue<Run>(MAX_FAN_IN + 1, new Comparator<Run>() {
+      @Override
+      public int compare(Run run, Run otherRun) {
+        return run.head.compareTo(otherRun.head);
+      }
+    });
+    private String nextType;
+
+    private MergedRuns(Iterator<String> bufferedTypes, List<File> files) {
+      try {
+        if (bufferedTypes != null) {
+          runs.add(new Run(bufferedTypes));
+        }
+        for (File runFile : files) {
+          runs.add(new Run(new RunFileIterator(runFile)));
+        }
+        for (Run run : runs) {
+          if (run.advance()) {
+            pendingRuns.add(run);
+          }
+        }
+      } catch (IllegalStateException e) {
+        close();
+        throw e;
+      }
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextType != null;
+    }
+
+    @Override
+    public String next() {
+      if (nextType == null) {
+        throw new NoSuchElementException();
+      }
+      final String type = nextType;
+      advance();
+      return type;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void advance() {
+      final String previousType = nextType;
+      nextType = null;
+      while ((nextType == null) && !pendingRuns.isEmpty()) {
+        final Run run = pendingRuns.poll();
+        if (!run.head.equals(previousType)) {
+          nextType = run.head;
+        }
+        if (run.advance()) {
+          pendingRuns.add(run);
+        }
+      }
+    }
+
+    private void close() {
+      for (Run run : runs) {
+        run.close();
+      }
+    }
+  }
+
+  private final class RunFileIterator implements Iterator<String> {
+    private final File runFile;
+    private final DataInputStream input;
+    private String nextType;
+
+    private RunFileIterator(File runFile) {
+      this.runFile = runFile;
+      DataInputStream runInput = null;
+      try {
+        runInput = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile), BUFFER_SIZE));
+        nextType = readType(runInput);
+      } catch (IOException e) {
+        IOUtil.close(runInput);
+        throw wrapIOException(e);
+      }
+      input = runInput;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextType != null;
+    }
+
+    @Override
+    public String next() {
+      if (nextType == null) {
+        throw new NoSuchElementException();
+      }
+      final String type = nextType;
+      try {
+        nextType = readType(input);
+      } catch (IOException e) {
+        throw wrapIOException(e);
+      }
+      return type;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void close() {
+      IOUtil.close(input);
+    }
+
+    private String readType(DataInputStream runInput) throws IOException {
+      return runInput.readBoolean() ? runInput.readUTF() : null;
+    }
+
+    private IllegalStateException wrapIOException(IOException e) {
+      final String error = "Unable to read spilled types from '" + runFile + "'!";
+      logger.error(error, e);
+      return new IllegalStateException(error, e);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package de.is24.maven.enforcer.rules;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+// numbers the type names of an execution densely, so repositories can keep their names as bits
+final class SymbolTable {
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+  // a name is stored before its id is published through the map, a replaced array contains all names stored before
+  private volatile String[] names = new String[INITIAL_CAPACITY];
+  private int size;
+
+  int getId(String name) {
+    final Integer id = ids.get(name);
+    return (id != null) ? id : addName(name);
+  }
+
+  // -1 if the name has no id
+  int findId(String name) {
+    final Integer id = ids.get(name);
+    return (id != null) ? id : -1;
+  }
+
+  String getName(int id) {
+    return names[id];
+  }
+
+  int size() {
+    return ids.size();
+  }
+
+  private synchronized int addName(String name) {
+    final Integer existingId = ids.get(name);
+    if (existingId != null) {
+      return existingId;
+    }
+
+    String[] currentNames = names;
+    if (size == currentNames.length) {
+      final String[] grownNames = new String[currentNames.length * 2];
+      System.arraycopy(currentNames, 0, grownNames, 0, size);
+      names = grownNames;
+      currentNames = grownNames;
+    }
+
+    final int id = size++;
+    currentNames[id] = name;
+    ids.put(name, id);
+    return id;
+  }
+}
@@ -0,0 +1,216 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+// persists the filtered types and dependencies found in immutable JARs, one small index file per JAR
+final class TypeIndexCache {
+  private static final int INDEX_FILE_MAGIC = 0x49544431;
+  private static final String INDEX_FILE_SUFFIX = ".idx";
+
+  private static final FileFilter INDEX_FILES = new FileFilter() {
+    @Override
+    public boolean accept(File file) {
+      return file.getName().endsWith(INDEX_FILE_SUFFIX) && file.isFile();
+    }
+  };
+
+  private final File directory;
+  private final long maxSize;
+  private final Log logger;
+
+  TypeIndexCache(File directory, long maxSize, Log logger) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.logger = logger;
+  }
+
+  static String makeKey(Artifact artifact, File jar, String analysis) {
+    // reading the file's attributes is much cheaper than computing its checksum
+    return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion() + ":" +
+      artifact.getClassifier() + "|" + jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified() + "|" +
+      analysis;
+  }
+
+  boolean load(String key, Repository repository) {
+    final File indexFile = getIndexFile(key);
+    if (!indexFile.isFile()) {
+      return false;
+    }
+
+    // read the whole index before adding anything to the repository
+    final List<String> types;
+    final List<String> dependencies;
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+      if ((input.readInt() != INDEX_FILE_MAGIC) || !key.equals(input.readUTF())) {
+        logger.debug("Type index '" + indexFile + "' does not match '" + key + "', ignore it.");
+        return false;
+      }
+      types = readNames(input);
+      dependencies = readNames(input);
+    } catch (IOException e) {
+      logger.warn("Unable to read type index '" + indexFile + "', ignore it.", e);
+      return false;
+    } finally {
+      IOUtil.close(input);
+    }
+
+    repository.addAll(types, dependencies);
+
+    // the modification time tracks the least recently used index files
+    if (!indexFile.setLastModified(System.currentTimeMillis())) {
+      logger.debug("Unable to touch type index '" + indexFile + "'.");
+    }
+    return true;
+  }
+
+  void store(String key, Repository repository) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      logger.warn("Unable to create type index cache directory '" + directory + "'!");
+      return;
+    }
+
+    // write to a temporary file first, concurrent builds must never read partially written indexes
+    File temporaryFile = null;
+    try {
+      temporaryFile = File.createTempFile("index", ".tmp", directory);
+
+      final DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+      try {
+        output.writeInt(INDEX_FILE_MAGIC);
+        output.writeUTF(key);
+        writeNames(output, repository.getTypes());
+        writeNames(output, repository.getDependencies());
+      } finally {
+        output.close();
+      }
+
+      final File indexFile = getIndexFile(key);
+      if (!temporaryFile.renameTo(indexFile) && !(indexFile.delete() && temporaryFile.renameTo(indexFile))) {
+        logger.warn("Unable to store type index '" + indexFile + "'!");
+      } else if (logger.isDebugEnabled()) {
+        logger.debug("Stored type index '" + indexFile + "' for '" + key + "'.");
+      }
+    } catch (IOException e) {
+      logger.warn("Unable to write type index for '" + key + "'!", e);
+    } finally {
+      if ((temporaryFile != null) && temporaryFile.exists() && !temporaryFile.delete()) {
+        logger.debug("Unable to delete temporary file '" + temporaryFile + "'.");
+      }
+    }
+  }
+
+  void evictLeastRecentlyUsed() {
+    final File[] indexFiles = directory.listFiles(INDEX_FILES);
+    if (indexFiles == null) {
+      return;
+    }
+
+    long size = 0;
+    final Map<File, Long> lastUsed = new HashMap<File, Long>();
+    for (File indexFile : indexFiles) {
+      size += indexFile.length();
+      lastUsed.put(indexFile, indexFile.lastModified());
+    }
+    if (size <= maxSize) {
+      return;
+    }
+
+    // sort by the recorded times, other builds may touch the files meanwhile
+    Arrays.sort(indexFiles, new Comparator<File>() {
+      @Override
+      public int compare(File indexFile, File otherIndexFile) {
+        return lastUsed.get(indexFile).compareTo(lastUsed.get(otherIndexFile));
+      }
+    });
+
+    for (File indexFile : indexFiles) {
+      if (size <= maxSize) {
+        break;
+      }
+
+      final long length = indexFile.length();
+      if (indexFile.delete()) {
+        size -= length;
+        if (logger.isDebugEnabled()) {
+          logger.debug("Evicted least recently used type index '" + indexFile + "'.");
+        }
+      }
+    }
+  }
+
+  private File getIndexFile(String key) {
+    return new File(directory, sha1(key) + INDEX_FILE_SUFFIX);
+  }
+
+  // names are sorted and stored with the length of the prefix shared with their predecessor
+  static void writeNames(DataOutputStream output, Collection<String> names) throws IOException {
+    final String[] sortedNames = names.toArray(new String[names.size()]);
+    Arrays.sort(sortedNames);
+
+    output.writeInt(sortedNames.length);
+    String previousName = "";
+    for (String name : sortedNames) {
+      final int maxPrefixLength = Math.min(previousName.length(), name.length());
+      int prefixLength = 0;
+      while ((prefixLength < maxPrefixLength) && (previousName.charAt(prefixLength) == name.charAt(prefixLength))) {
+        prefixLength++;
+      }
+      output.writeShort(prefixLength);
+      output.writeUTF(name.substring(prefixLength));
+      previousName = name;
+    }
+  }
+
+  static List<String> readNames(DataInputStream input) throws IOException {
+    final int numberOfNames = input.readInt();
+    final List<String> names = new ArrayList<String>(numberOfNames);
+    String previousName = "";
+    for (int i = 0; i < numberOfNames; i++) {
+      final int prefixLength = input.readUnsignedShort();
+      if (prefixLength > previousName.length()) {
+        throw new IOException("Corrupt type index, invalid prefix length " + prefixLength + "!");
+      }
+
+      final String name = previousName.substring(0, prefixLength) + input.readUTF();
+      names.add(name);
+      previousName = name;
+    }
+    return names;
+  }
+
+  private static String sha1(String key) {
+    try {
+      return AnalysisFingerprint.toHexString(MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8")));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not supported by the Java runtime!", e);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("UTF-8 is not supported by the Java runtime!", e);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package de.is24.maven.enforcer.rules;
+
+import java.util.Arrays;
+
+
+/**
+ * Reads type names from internal names and descriptors without creating ASM types or substrings. The dotted name of
+ * every internal name is created once and shared afterwards, the names are looked up in an open addressing table by
+ * the region of the internal name within the descriptor. The names equal the ones of {@link Types}.
+ */
+final class TypeNameCache {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // the cache of a class file reader lives as long as the analysis of a JAR, it's reset if it grows that big
+  private static final int MAX_NAMES = 1 << 16;
+
+  private String[] internalNames = new String[INITIAL_CAPACITY];
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int size;
+
+  // 'java/lang/String' or an array descriptor like '[[Ljava/lang/String;'
+  String readInternalTypeName(String internalName) {
+    if ((internalName.length() > 0) && (internalName.charAt(0) == '[')) {
+      return readDescriptionType(internalName, 0);
+    }
+    return readInternalTypeName(internalName, 0, internalName.length());
+  }
+
+  String readTypeDescription(String description) {
+    return readDescriptionType(description, 0);
+  }
+
+  // the element type of the field descriptor at start
+  String readDescriptionType(String description, int start) {
+    int index = start;
+    while (description.charAt(index) == '[') {
+      index++;
+    }
+
+    final char c = description.charAt(index);
+    if (c == 'L') {
+      return readInternalTypeName(description, index + 1, description.indexOf(';', index));
+    }
+    return Types.readPrimitiveName(c);
+  }
+
+  // the index following the field descriptor at start
+  static int skipDescriptionType(String description, int start) {
+    int index = start;
+    while (description.charAt(index) == '[') {
+      index++;
+    }
+    return (description.charAt(index) == 'L') ? (description.indexOf(';', index) + 1) : (index + 1);
+  }
+
+  // the class name between start and end, e.g. within a signature
+  String readInternalTypeName(String internalName, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = (31 * hash) + internalName.charAt(i);
+    }
+
+    final int mask = internalNames.length - 1;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    String cachedName;
+    while ((cachedName = internalNames[slot]) != null) {
+      if ((cachedName.length() == (end - start)) && internalName.regionMatches(start, cachedName, 0, end - start)) {
+        return names[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    final String cachedInternalName = internalName.substring(start, end);
+    final String name = cachedInternalName.replace('/', '.');
+    if (size >= MAX_NAMES) {
+      Arrays.fill(internalNames, null);
+      Arrays.fill(names, null);
+      size = 0;
+    } else if ((2 * (size + 1)) > internalNames.length) {
+      resize();
+    }
+    put(cachedInternalName, name);
+    return name;
+  }
+
+  private void put(String internalName, String name) {
+    final int mask = internalNames.length - 1;
+    final int hash = internalName.hashCode();
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (internalNames[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    internalNames[slot] = internalName;
+    names[slot] = name;
+    size++;
+  }
+
+  private void resize() {
+    final String[] oldInternalNames = internalNames;
+    final String[] oldNames = names;
+    internalNames = new String[oldInternalNames.length * 2];
+    names = new String[oldNames.length * 2];
+    size = 0;
+    for (int i = 0; i < oldInternalNames.length; i++) {
+      if (oldInternalNames[i] != null) {
+        put(oldInternalNames[i], oldNames[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package de.is24.maven.enforcer.rules;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+
+// matches type names against suppression regexes, literal names and prefixes like 'my\.package\..*' are looked up in a
+// character trie, only the remaining regexes are combined into one pattern
+final class TypeNameMatcher {
+  // what may follow a prefix in the trie
+  private static final int EXACT = 1;
+  private static final int ANY = 2;
+  private static final int NON_EMPTY = 4;
+  private static final int WORD_CHARACTERS = 8;
+
+  private final Node root = new Node();
+  private final Pattern fallbackPattern;
+  private int trieEntries;
+
+  TypeNameMatcher(String... regexes) {
+    final StringBuilder fallbackRegex = new StringBuilder();
+    for (String regex : regexes) {
+      if (!addToTrie(regex)) {
+        if (fallbackRegex.length() > 0) {
+          fallbackRegex.append('|');
+        }
+        fallbackRegex.append('(').append(regex).append(')');
+      }
+    }
+    fallbackPattern = (fallbackRegex.length() > 0) ? Pattern.compile(fallbackRegex.toString()) : null;
+  }
+
+  // the trie is fed directly for the built-in Java types, they don't have to be parsed
+  TypeNameMatcher withName(String name) {
+    add(name, EXACT);
+    return this;
+  }
+
+  TypeNameMatcher withPrefix(String prefix) {
+    add(prefix, WORD_CHARACTERS);
+    return this;
+  }
+
+  int getTrieEntries() {
+    return trieEntries;
+  }
+
+  String getFallbackRegex() {
+    return (fallbackPattern == null) ? null : fallbackPattern.pattern();
+  }
+
+  boolean matches(String type) {
+    return matchesTrie(type) || ((fallbackPattern != null) && fallbackPattern.matcher(type).matches());
+  }
+
+  private boolean matchesTrie(String type) {
+    final int length = type.length();
+    Node node = root;
+    for (int i = 0; (node != null) && (i <= length); i++) {
+      if ((node.tails != 0) && matchesTail(node.tails, type, i)) {
+        return true;
+      }
+      node = (i < length) ? node.child(type.charAt(i)) : null;
+    }
+    return false;
+  }
+
+  private static boolean matchesTail(int tails, String type, int start) {
+    final int length = type.length();
+    if (((tails & EXACT) != 0) && (start == length)) {
+      return true;
+    }
+    if (((tails & NON_EMPTY) != 0) && (start < length) && !containsLineTerminator(type, start)) {
+      return true;
+    }
+    if (((tails & ANY) != 0) && !containsLineTerminator(type, start)) {
+      return true;
+    }
+    return ((tails & WORD_CHARACTERS) != 0) && containsWordCharactersOnly(type, start);
+  }
+
+  // '.' doesn't match line terminators
+  private static boolean containsLineTerminator(String type, int start) {
+    for (int i = start; i < type.length(); i++) {
+      final char c = type.charAt(i);
+      if ((c == '\n') || (c == '\r') || (c == '\u0085') || (c == '\u2028') || (c == '\u2029')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // '[\w\.\$]*'
+  private static boolean containsWordCharactersOnly(String type, int start) {
+    for (int i = start; i < type.length(); i++) {
+      final char c = type.charAt(i);
+      if (!(isWordCharacter(c) || (c == '.') || (c == '$'))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isWordCharacter(char c) {
+    return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '_');
+  }
+
+  // accepts literals of word characters, '\.' and '\$' which are optionally followed by '.*' or '.+'
+  private boolean addToTrie(String regex) {
+    final StringBuilder literal = new StringBuilder();
+    int tail = EXACT;
+    for (int i = 0; i < regex.length(); i++) {
+      final char c = regex.charAt(i);
+      if (isWordCharacter(c)) {
+        literal.append(c);
+      } else if ((c == '\\') && (i + 1 < regex.length()) &&
+          ((regex.charAt(i + 1) == '.') || (regex.charAt(i + 1) == '$'))) {
+        literal.append(regex.charAt(++i));
+      } else if ((c == '.') && (i + 2 == regex.length()) && (regex.charAt(i + 1) == '*')) {
+        tail = ANY;
+        break;
+      } else if ((c == '.') && (i + 2 == regex.length()) && (regex.charAt(i + 1) == '+')) {
+        tail = NON_EMPTY;
+        break;
+      } else {
+        return false;
+      }
+    }
+
+    add(literal.toString(), tail);
+    return true;
+  }
+
+  private void add(String prefix, int tail) {
+    Node node = root;
+    for (int i = 0; i < prefix.length(); i++) {
+      node = node.addChild(prefix.charAt(i));
+    }
+    node.tails |= tail;
+    trieEntries++;
+  }
+
+  private static final class Node {
+    // sorted characters of the children
+    private char[] characters = new char[0];
+    private Node[] children = new Node[0];
+    private int tails;
+
+    private Node child(char c) {
+      final int index = Arrays.binarySearch(characters, c);
+      return (index >= 0) ? children[index] : null;
+    }
+
+    private Node addChild(char c) {
+      final int index = Arrays.binarySearch(characters, c);
+      if (index >= 0) {
+        return children[index];
+      }
+
+      final int insertion = -(index + 1);
+      final Node child = new Node();
+      final Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(children, 0, newChildren, 0, insertion);
+      newChildren[insertion] = child;
+      System.arraycopy(children, insertion, newChildren, insertion + 1, children.length - insertion);
+      children = newChildren;
+
+      final char[] newCharacters = new char[characters.length + 1];
+      System.arraycopy(characters, 0, newCharacters, 0, insertion);
+      newCharacters[insertion] = c;
+      System.arraycopy(characters, insertion, newCharacters, insertion + 1, characters.length - insertion);
+      characters = newCharacters;
+      return child;
+    }
+  }
+}
@@ -38,4 +38,48 @@ final class Types {
     final Type type = Type.getObjectType(internalName);
     return readType(type);
   }
+
+  static String readPrimitiveName(int descriptor) {
+    switch (descriptor) {
+      case 'B': {
+        return "byte";
+      }
+
+      case 'C': {
+        return "char";
+      }
+
+      case 'D': {
+        return "double";
+      }
+
+      case 'F': {
+        return "float";
+      }
+
+      case 'I': {
+        return "int";
+      }
+
+      case 'J': {
+        return "long";
+      }
+
+      case 'S': {
+        return "short";
+      }
+
+      case 'Z': {
+        return "boolean";
+      }
+
+      case 'V': {
+        return "void";
+      }
+
+      default: {
+        return null;
+      }
+    }
+  }
 }
@@ -1,19 +1,51 @@
 package de.is24.maven.enforcer.rules;
 
+import de.is24.maven.enforcer.rules.testtypes.ClassInAnotherTransitiveDependency;
+import de.is24.maven.enforcer.rules.testtypes.ClassInDirectDependency;
+import de.is24.maven.enforcer.rules.testtypes.ClassInMavenProjectSource;
+import de.is24.maven.enforcer.rules.testtypes.ClassInTransitiveDependency;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugin.testing.stubs.ArtifactStub;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 
 public class ArtifactRepositoryAnalyzerTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void analyzeEmptyArtifact() {
     final LogStub logger = new LogStub();
@@ -92,6 +124,604 @@ public class ArtifactRepositoryAnalyzerTest {
     assertThat(logger.getDebugLog(), containsString(classFile.getPath()));
   }
 
+  @Test
+  public void parallelAnalysisMatchesSequentialAnalysis() throws IOException, URISyntaxException {
+    final List<Artifact> artifacts = makeArtifactCorpus();
+
+    for (boolean analyzeDependencies : new boolean[] { true, false }) {
+      final LogStub logger = new LogStub();
+      final ClassFilter filter = new ClassFilter(logger, false);
+
+      final Repository sequentialRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .analyzeArtifacts(artifacts);
+
+      final Repository parallelRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .withThreads(4)
+        .analyzeArtifacts(artifacts);
+
+      assertThat(sequentialRepository.getTypes().isEmpty(), is(false));
+      assertThat(parallelRepository.getTypes(), is(sequentialRepository.getTypes()));
+      assertThat(parallelRepository.getDependencies(), is(sequentialRepository.getDependencies()));
+      assertThat(logger.getDebugLog(), containsString("using 4 threads."));
+    }
+  }
+
+  @Test
+  public void parallelAnalysisOfBigJarMatchesSequentialAnalysis() throws IOException, URISyntaxException {
+    final Artifact bigJarArtifact = makeArtifact(makeBigJar(getJarOfClass(Test.class), 5));
+    final List<Artifact> artifacts = Collections.singletonList(bigJarArtifact);
+
+    final LogStub logger = new LogStub();
+    final ClassFilter filter = new ClassFilter(logger, false);
+
+    final Repository sequentialRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .analyzeArtifacts(artifacts);
+    final Repository parallelRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .withThreads(2)
+      .analyzeArtifacts(artifacts);
+
+    assertThat(logger.getDebugLog(), containsString("into ranges of 1000 classes."));
+    assertThat(logger.getDebugLog(), containsString("using 2 threads."));
+    assertThat(parallelRepository.getTypes(), is(sequentialRepository.getTypes()));
+    assertThat(parallelRepository.getDependencies(), is(sequentialRepository.getDependencies()));
+  }
+
+  @Test
+  public void pipelinedAnalysisMatchesSequentialAnalysis() throws IOException, URISyntaxException {
+    final List<Artifact> artifacts = makeArtifactCorpus();
+
+    for (boolean analyzeDependencies : new boolean[] { true, false }) {
+      final LogStub logger = new LogStub();
+      final ClassFilter filter = new ClassFilter(logger, false);
+
+      final Repository sequentialRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .withVerifiedTypeNames(true)
+        .analyzeArtifacts(artifacts);
+
+      // a tiny read ahead memory keeps the readers waiting for the parsers
+      final Repository pipelinedRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .withVerifiedTypeNames(true)
+        .withThreads(2)
+        .withPipeline(2, 16 * 1024)
+        .analyzeArtifacts(artifacts);
+
+      assertThat(sequentialRepository.getTypes().isEmpty(), is(false));
+      assertThat(pipelinedRepository.getTypes(), is(sequentialRepository.getTypes()));
+      assertThat(pipelinedRepository.getDependencies(), is(sequentialRepository.getDependencies()));
+      assertThat(logger.getDebugLog(), containsString("using 2 reader threads and 2 parser threads."));
+      assertThat(logger.getInfoLog(), containsString("passed the pipeline, queue depth avg."));
+    }
+  }
+
+  @Test
+  public void readTypeNamesFromCentralDirectory() throws IOException {
+    final LogStub logger = new LogStub();
+    final Artifact artifact = makeArtifact(makePrefixedEntriesJar());
+
+    final Repository repository = ArtifactRepositoryAnalyzer.analyzeArtifacts(
+      logger,
+      false,
+      new ClassFilter(logger, false))
+      .analyzeArtifacts(Collections.singleton(artifact));
+
+    assertThat(repository.getTypes().size(), is(3));
+    assertThat(repository.getTypes().contains(ClassInDirectDependency.class.getName()), is(true));
+    assertThat(repository.getTypes().contains(ClassInTransitiveDependency.class.getName()), is(true));
+    assertThat(repository.getTypes().contains("misplaced.SomeClass"), is(true));
+  }
+
+  @Test
+  public void verifyTypeNamesFromCentralDirectory() throws IOException {
+    final LogStub logger = new LogStub();
+    final Artifact artifact = makeArtifact(makePrefixedEntriesJar());
+
+    final Repository repository = ArtifactRepositoryAnalyzer.analyzeArtifacts(
+      logger,
+      false,
+      new ClassFilter(logger, false))
+      .withVerifiedTypeNames(true)
+      .analyzeArtifacts(Collections.singleton(artifact));
+
+    assertThat(repository.getTypes().size(), is(3));
+    assertThat(repository.getTypes().contains(ClassInDirectDependency.class.getName()), is(true));
+    assertThat(repository.getTypes().contains(ClassInTransitiveDependency.class.getName()), is(true));
+    assertThat(repository.getTypes().contains(ClassInMavenProjectSource.class.getName()), is(true));
+    assertThat(logger.getWarnLog(), containsString("is stored as 'misplaced/SomeClass.class'"));
+  }
+
+  @Test
+  public void typeIndexCacheReplacesAnalysisOfUnchangedJars() throws IOException, URISyntaxException {
+    final List<Artifact> artifacts = makeArtifactCorpus();
+    final File cacheDirectory = folder.newFolder("cache");
+
+    for (boolean analyzeDependencies : new boolean[] { true, false }) {
+      final LogStub logger = new LogStub();
+      final ClassFilter filter = new ClassFilter(logger, false);
+      final TypeIndexCache typeIndexCache = new TypeIndexCache(cacheDirectory, Long.MAX_VALUE, logger);
+
+      final Repository uncachedRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .analyzeArtifacts(artifacts);
+      final Repository coldCacheRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .withThreads(4)
+        .withTypeIndexCache(typeIndexCache)
+        .analyzeArtifacts(artifacts);
+
+      assertThat(logger.getDebugLog(), not(containsString("from type index cache.")));
+
+      final Repository warmCacheRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        analyzeDependencies,
+        filter)
+        .withTypeIndexCache(typeIndexCache)
+        .analyzeArtifacts(artifacts);
+
+      assertThat(logger.getDebugLog(), containsString("from type index cache."));
+      assertThat(coldCacheRepository.getTypes(), is(uncachedRepository.getTypes()));
+      assertThat(coldCacheRepository.getDependencies(), is(uncachedRepository.getDependencies()));
+      assertThat(warmCacheRepository.getTypes(), is(uncachedRepository.getTypes()));
+      assertThat(warmCacheRepository.getDependencies(), is(uncachedRepository.getDependencies()));
+    }
+  }
+
+  @Test
+  public void analyzeChangedClassFilesOnly() throws IOException {
+    final File classesDirectory = makeClassesDirectory(ClassInMavenProjectSource.class,
+      ClassInDirectDependency.class,
+      ClassInTransitiveDependency.class);
+    final File snapshotFile = new File(folder.getRoot(), "classes.snapshot");
+
+    final LogStub logger = new LogStub();
+    final ClassFilter filter = new ClassFilter(logger, false);
+    final Artifact artifact = makeArtifact(classesDirectory);
+
+    final Repository firstRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .withClassesSnapshot(snapshotFile)
+      .analyzeArtifacts(Collections.singleton(artifact));
+    final Repository secondRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .withClassesSnapshot(snapshotFile)
+      .analyzeArtifacts(Collections.singleton(artifact));
+
+    assertThat(logger.getInfoLog(), containsString("Analyzed 3 of 3 class files"));
+    assertThat(logger.getInfoLog(), containsString("Analyzed 0 of 3 class files"));
+    assertThat(secondRepository.getTypes().isEmpty(), is(false));
+    assertThat(secondRepository.getTypes(), is(firstRepository.getTypes()));
+    assertThat(secondRepository.getDependencies(), is(firstRepository.getDependencies()));
+
+    // remove one class and recompile another one
+    final File directDependencyClassFile = new File(classesDirectory, toResource(ClassInDirectDependency.class));
+    final File transitiveDependencyClassFile = new File(classesDirectory,
+      toResource(ClassInTransitiveDependency.class));
+    assertThat(directDependencyClassFile.delete(), is(true));
+    assertThat(transitiveDependencyClassFile.setLastModified(transitiveDependencyClassFile.lastModified() - 10000L),
+      is(true));
+
+    final Repository incrementalRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .withClassesSnapshot(snapshotFile)
+      .analyzeArtifacts(Collections.singleton(artifact));
+    final Repository fullRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .analyzeArtifacts(Collections.singleton(artifact));
+
+    assertThat(logger.getInfoLog(), containsString("Analyzed 1 of 2 class files"));
+    assertThat(logger.getInfoLog(), containsString("1 class files have been removed"));
+    assertThat(incrementalRepository.getTypes(), is(fullRepository.getTypes()));
+    assertThat(incrementalRepository.getDependencies(), is(fullRepository.getDependencies()));
+  }
+
+  private File makeClassesDirectory(Class<?>... classes) throws IOException {
+    final File classesDirectory = folder.newFolder("classes");
+    for (Class<?> clazz : classes) {
+      final File classFile = new File(classesDirectory, toResource(clazz));
+      assertThat(classFile.getParentFile().isDirectory() || classFile.getParentFile().mkdirs(), is(true));
+      try(InputStream in = clazz.getResourceAsStream("/" + toResource(clazz))) {
+        Files.copy(in, classFile.toPath());
+      }
+    }
+    return classesDirectory;
+  }
+
+  @Test
+  public void analyzeNestedArchives() throws IOException {
+    final Map<String, Class<?>> libraryEntries = new LinkedHashMap<>();
+    libraryEntries.put(toResource(ClassInTransitiveDependency.class), ClassInTransitiveDependency.class);
+    libraryEntries.put(toResource(ClassInDirectDependency.class), ClassInDirectDependency.class);
+    final byte[] library = makeArchive(libraryEntries);
+
+    final Map<String, Class<?>> webApplicationEntries = new LinkedHashMap<>();
+    webApplicationEntries.put("WEB-INF/classes/" + toResource(ClassInMavenProjectSource.class),
+      ClassInMavenProjectSource.class);
+    final Map<String, Class<?>> bootApplicationEntries = new LinkedHashMap<>();
+    bootApplicationEntries.put("BOOT-INF/classes/" + toResource(ClassInMavenProjectSource.class),
+      ClassInMavenProjectSource.class);
+
+    final List<Artifact> artifacts = new ArrayList<>();
+    artifacts.add(makeArtifact(makeArchive("application.war", webApplicationEntries, "WEB-INF/lib/library.jar",
+      library)));
+    artifacts.add(makeArtifact(makeArchive("application.jar", bootApplicationEntries, "BOOT-INF/lib/library.jar",
+      library)));
+
+    for (boolean verifyTypeNames : new boolean[] { true, false }) {
+      final LogStub logger = new LogStub();
+      final ClassFilter filter = new ClassFilter(logger, false);
+
+      final Repository sequentialRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, filter)
+        .withVerifiedTypeNames(verifyTypeNames)
+        .analyzeArtifacts(artifacts);
+      final Repository parallelRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, filter)
+        .withVerifiedTypeNames(verifyTypeNames)
+        .withThreads(2)
+        .analyzeArtifacts(artifacts);
+      final Repository pipelinedRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, filter)
+        .withVerifiedTypeNames(verifyTypeNames)
+        .withPipeline(2, 1024 * 1024)
+        .analyzeArtifacts(artifacts);
+
+      assertThat(sequentialRepository.getTypes().size(), is(3));
+      assertThat(sequentialRepository.getTypes().contains(ClassInMavenProjectSource.class.getName()), is(true));
+      assertThat(sequentialRepository.getTypes().contains(ClassInTransitiveDependency.class.getName()), is(true));
+      assertThat(parallelRepository.getTypes(), is(sequentialRepository.getTypes()));
+      assertThat(pipelinedRepository.getTypes(), is(sequentialRepository.getTypes()));
+      assertThat(logger.getWarnLog().isEmpty(), is(true));
+      assertThat(logger.getDebugLog(), containsString("application.war!/WEB-INF/lib/library.jar"));
+    }
+
+    final LogStub logger = new LogStub();
+    final Repository dependenciesRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+      true,
+      new ClassFilter(logger, false))
+      .analyzeArtifacts(artifacts);
+    assertThat(dependenciesRepository.getDependencies().contains(
+      ClassInDirectDependency.EnumInClassInDirectDependency.class.getName()), is(true));
+  }
+
+  @Test
+  public void analyzeBundledLibrariesForTypesOnly() throws IOException {
+    // the bundled library is a direct dependency, the application may use its types but not their dependencies
+    final Map<String, Class<?>> libraryEntries = new LinkedHashMap<>();
+    libraryEntries.put(toResource(ClassInDirectDependency.class), ClassInDirectDependency.class);
+    libraryEntries.put(toResource(LogStub.class), LogStub.class);
+    final byte[] library = makeArchive(libraryEntries);
+
+    final Map<String, Class<?>> webApplicationEntries = new LinkedHashMap<>();
+    webApplicationEntries.put("WEB-INF/classes/" + toResource(ClassInMavenProjectSource.class),
+      ClassInMavenProjectSource.class);
+    final List<Artifact> webApplication = Collections.singletonList(makeArtifact(makeArchive("application.war",
+      webApplicationEntries,
+      "WEB-INF/lib/library.jar",
+      library)));
+
+    final LogStub logger = new LogStub();
+    final ClassFilter filter = new ClassFilter(logger, true);
+    for (int readerThreads : new int[] { 0, 2 }) {
+      final Repository repository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+        .withPipeline(readerThreads, 1024 * 1024)
+        .analyzeArtifacts(webApplication);
+      final Set<String> unresolvedTypes = repository.getUnresolvedDependencies(repository);
+
+      assertThat(repository.getTypes().contains(ClassInDirectDependency.class.getName()), is(true));
+      assertThat(unresolvedTypes.contains(ClassInDirectDependency.class.getName()), is(false));
+      assertThat(unresolvedTypes.contains(ClassInTransitiveDependency.class.getName()), is(true));
+      assertThat(repository.getDependencies().contains(Log.class.getName()), is(false));
+    }
+  }
+
+  @Test
+  public void pipelinedAnalysisOfBundledLibrariesVerifiesTypeNamesOnlyIfRequested() throws IOException {
+    // the class file of the bundled library is stored under another name than its type's, the application's classes
+    // are read anyway, so the pipeline reads the library's class files as well
+    final Map<String, Class<?>> libraryEntries = new LinkedHashMap<>();
+    libraryEntries.put("misplaced/SomeClass.class", ClassInDirectDependency.class);
+    final List<Artifact> webApplication = Collections.singletonList(makeArtifact(makeArchive("application.war",
+      new LinkedHashMap<String, Class<?>>(),
+      "WEB-INF/lib/library.jar",
+      makeArchive(libraryEntries))));
+
+    final LogStub logger = new LogStub();
+    final ClassFilter filter = new ClassFilter(logger, false);
+    for (boolean verifyTypeNames : new boolean[] { false, true }) {
+      final Set<String> expectedTypes = verifyTypeNames ? typeNames(ClassInDirectDependency.class)
+        : Collections.singleton("misplaced.SomeClass");
+      for (int readerThreads : new int[] { 0, 2 }) {
+        final Repository repository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+          .withVerifiedTypeNames(verifyTypeNames)
+          .withPipeline(readerThreads, 1024 * 1024)
+          .analyzeArtifacts(webApplication);
+
+        assertThat(repository.getTypes(), is(expectedTypes));
+      }
+    }
+  }
+
+  @Test
+  public void analyzeMostSpecificEntriesOfMultiReleaseJar() throws IOException {
+    final List<Artifact> multiReleaseJar = Collections.singletonList(makeArtifact(makeMultiReleaseJar(true)));
+    final List<Artifact> plainJar = Collections.singletonList(makeArtifact(makeMultiReleaseJar(false)));
+
+    assertThat(analyzeForRelease(multiReleaseJar, 0),
+      is(typeNames(ClassInDirectDependency.class, ClassInTransitiveDependency.class,
+        ClassInAnotherTransitiveDependency.class)));
+    assertThat(analyzeForRelease(multiReleaseJar, 8), is(typeNames(ClassInDirectDependency.class)));
+    assertThat(analyzeForRelease(multiReleaseJar, 10), is(typeNames(ClassInTransitiveDependency.class)));
+    assertThat(analyzeForRelease(multiReleaseJar, 17), is(typeNames(ClassInAnotherTransitiveDependency.class)));
+
+    // versioned entries of JARs without the 'Multi-Release' attribute are ignored by the runtime
+    assertThat(analyzeForRelease(plainJar, 17), is(typeNames(ClassInDirectDependency.class)));
+  }
+
+  @Test
+  public void findAllArtifactsDefiningTypesUntilEveryTypeIsFound() throws IOException {
+    final Artifact transitiveArtifact = makeJarArtifact("transitive.jar", ClassInTransitiveDependency.class);
+    final Artifact bundleArtifact = makeJarArtifact("bundle.jar",
+      ClassInTransitiveDependency.class,
+      ClassInDirectDependency.class);
+    final Artifact otherArtifact = makeJarArtifact("other.jar", ClassInAnotherTransitiveDependency.class);
+    final List<Artifact> artifacts = Arrays.asList(transitiveArtifact, bundleArtifact, otherArtifact);
+
+    final Set<String> types = typeNames(ClassInTransitiveDependency.class, ClassInDirectDependency.class);
+
+    final LogStub logger = new LogStub();
+    final Map<String, Set<Artifact>> definingArtifacts = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+      false,
+      new ClassFilter(logger, false))
+      .findArtifactsDefiningTypes(artifacts, types);
+
+    assertThat(definingArtifacts.keySet(), is(types));
+    assertThat(definingArtifacts.get(ClassInTransitiveDependency.class.getName()),
+      is((Set<Artifact>) new HashSet<>(Arrays.asList(transitiveArtifact, bundleArtifact))));
+    assertThat(definingArtifacts.get(ClassInDirectDependency.class.getName()),
+      is(Collections.singleton(bundleArtifact)));
+
+    // the last artifact is not analyzed at all, all types have been found before
+    assertThat(logger.getDebugLog(), containsString("in 2 of 3 artifacts"));
+
+    final Map<String, Set<Artifact>> concurrentlyDefiningArtifacts = ArtifactRepositoryAnalyzer.analyzeArtifacts(
+      logger,
+      false,
+      new ClassFilter(logger, false))
+      .withThreads(3)
+      .findArtifactsDefiningTypes(artifacts, types);
+    assertThat(concurrentlyDefiningArtifacts, is(definingArtifacts));
+  }
+
+  @Test
+  public void definingArtifactsDontDependOnTimingOfThreads() throws IOException {
+    // the bundle defining all types takes far longer to analyze than the artifacts around it
+    final Map<String, Class<?>> entries = new LinkedHashMap<>();
+    entries.put(toResource(ClassInTransitiveDependency.class), ClassInTransitiveDependency.class);
+    entries.put(toResource(ClassInDirectDependency.class), ClassInDirectDependency.class);
+    for (int i = 0; i < 2000; i++) {
+      entries.put("padding/Padding" + i + ".class", ClassReader.class);
+    }
+    final Artifact bundleArtifact = makeArtifact(makeJar("slow-bundle.jar", entries));
+    bundleArtifact.setArtifactId("slow-bundle.jar");
+
+    final Artifact otherArtifact = makeJarArtifact("other.jar", ClassInAnotherTransitiveDependency.class);
+    final Artifact transitiveArtifact = makeJarArtifact("transitive.jar", ClassInTransitiveDependency.class);
+    final Artifact anotherArtifact = makeJarArtifact("another.jar", ClassInDirectDependency.class);
+    final List<Artifact> artifacts = Arrays.asList(otherArtifact, bundleArtifact, transitiveArtifact,
+      anotherArtifact);
+
+    final Set<String> types = typeNames(ClassInTransitiveDependency.class, ClassInDirectDependency.class);
+
+    // one by one the artifacts behind the bundle aren't analyzed, the threads must not list them either
+    final LogStub logger = new LogStub();
+    for (int threads = 1; threads <= 3; threads++) {
+      final Map<String, Set<Artifact>> definingArtifacts = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger,
+        false,
+        new ClassFilter(logger, false))
+        .withThreads(threads)
+        .findArtifactsDefiningTypes(artifacts, types);
+
+      assertThat(definingArtifacts.keySet(), is(types));
+      assertThat(definingArtifacts.get(ClassInTransitiveDependency.class.getName()),
+        is(Collections.singleton(bundleArtifact)));
+      assertThat(definingArtifacts.get(ClassInDirectDependency.class.getName()),
+        is(Collections.singleton(bundleArtifact)));
+    }
+  }
+
+  @Test
+  public void removeTypesOfArtifactsUntilNoneIsPending() throws IOException {
+    final Artifact directArtifact = makeJarArtifact("direct.jar", ClassInDirectDependency.class);
+    final Artifact transitiveArtifact = makeJarArtifact("transitive.jar", ClassInTransitiveDependency.class);
+    final Artifact otherArtifact = makeJarArtifact("other.jar", ClassInAnotherTransitiveDependency.class);
+    final List<Artifact> artifacts = Arrays.asList(directArtifact, transitiveArtifact, otherArtifact);
+
+    final LogStub logger = new LogStub();
+    final Set<String> pendingTypes = typeNames(ClassInDirectDependency.class, ClassInTransitiveDependency.class);
+    pendingTypes.add("de.is24.UnknownType");
+    ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, new ClassFilter(logger, false))
+      .removeTypesOfArtifacts(artifacts, pendingTypes);
+
+    assertThat(pendingTypes, is(Collections.singleton("de.is24.UnknownType")));
+    assertThat(logger.getDebugLog(), containsString("1 types are still pending after analyzing 3 of 3 artifacts."));
+
+    // the last artifact is skipped, no type is pending anymore
+    final Set<String> resolvableTypes = typeNames(ClassInDirectDependency.class, ClassInTransitiveDependency.class);
+    ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, new ClassFilter(logger, false))
+      .removeTypesOfArtifacts(artifacts, resolvableTypes);
+
+    assertThat(resolvableTypes.isEmpty(), is(true));
+    assertThat(logger.getDebugLog(), containsString("0 types are still pending after analyzing 2 of 3 artifacts."));
+  }
+
+  private Set<String> analyzeForRelease(List<Artifact> artifacts, int targetRelease) {
+    final LogStub logger = new LogStub();
+    final ClassFilter filter = new ClassFilter(logger, false);
+
+    final Repository sequentialRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .withTargetRelease(targetRelease)
+      .analyzeArtifacts(artifacts);
+    final Repository parallelRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, filter)
+      .withTargetRelease(targetRelease)
+      .withThreads(2)
+      .analyzeArtifacts(artifacts);
+
+    assertThat(parallelRepository.getTypes(), is(sequentialRepository.getTypes()));
+    return sequentialRepository.getTypes();
+  }
+
+  private Set<String> typeNames(Class<?>... classes) {
+    final Set<String> typeNames = new HashSet<>();
+    for (Class<?> clazz : classes) {
+      typeNames.add(clazz.getName());
+    }
+    return typeNames;
+  }
+
+  // every version of the entry holds another class, so the analyzed type reveals the version that has been read
+  private File makeMultiReleaseJar(boolean multiRelease) throws IOException {
+    final String path = toResource(ClassInDirectDependency.class);
+    final Map<String, Class<?>> entries = new LinkedHashMap<>();
+    entries.put(path, ClassInDirectDependency.class);
+    entries.put("META-INF/versions/9/" + path, ClassInTransitiveDependency.class);
+    entries.put("META-INF/versions/11/" + path, ClassInAnotherTransitiveDependency.class);
+
+    final Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    if (multiRelease) {
+      manifest.getMainAttributes().putValue("Multi-Release", "true");
+    }
+
+    final File jar = folder.newFile(multiRelease ? "multi-release.jar" : "plain.jar");
+    try(JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+      for (Map.Entry<String, Class<?>> entry : entries.entrySet()) {
+        jarOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+        try(InputStream in = entry.getValue().getResourceAsStream("/" + toResource(entry.getValue()))) {
+          copy(in, jarOutputStream);
+        }
+        jarOutputStream.closeEntry();
+      }
+    }
+    return jar;
+  }
+
+  private File makeArchive(String fileName, Map<String, Class<?>> entries, String nestedArchiveName,
+                           byte[] nestedArchive) throws IOException {
+    final File archive = folder.newFile(fileName);
+    try(FileOutputStream out = new FileOutputStream(archive)) {
+      out.write(makeArchive(entries, nestedArchiveName, nestedArchive));
+    }
+    return archive;
+  }
+
+  private byte[] makeArchive(Map<String, Class<?>> entries) throws IOException {
+    return makeArchive(entries, null, null);
+  }
+
+  private byte[] makeArchive(Map<String, Class<?>> entries, String nestedArchiveName, byte[] nestedArchive)
+    throws IOException {
+    final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    try(ZipOutputStream zipOutputStream = new ZipOutputStream(archive)) {
+      for (Map.Entry<String, Class<?>> entry : entries.entrySet()) {
+        zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+        try(InputStream in = entry.getValue().getResourceAsStream("/" + toResource(entry.getValue()))) {
+          copy(in, zipOutputStream);
+        }
+        zipOutputStream.closeEntry();
+      }
+      if (nestedArchiveName != null) {
+        zipOutputStream.putNextEntry(new ZipEntry(nestedArchiveName));
+        zipOutputStream.write(nestedArchive);
+        zipOutputStream.closeEntry();
+      }
+    }
+    return archive.toByteArray();
+  }
+
+  private File makePrefixedEntriesJar() throws IOException {
+    final Map<String, Class<?>> entries = new LinkedHashMap<>();
+    entries.put("WEB-INF/classes/" + toResource(ClassInDirectDependency.class), ClassInDirectDependency.class);
+    entries.put("META-INF/versions/9/" + toResource(ClassInTransitiveDependency.class),
+      ClassInTransitiveDependency.class);
+    entries.put("misplaced/SomeClass.class", ClassInMavenProjectSource.class);
+
+    return makeJar("prefixed.jar", entries);
+  }
+
+  private File makeJar(String fileName, Map<String, Class<?>> entries) throws IOException {
+    final File jar = folder.newFile(fileName);
+    try(ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(jar))) {
+      for (Map.Entry<String, Class<?>> entry : entries.entrySet()) {
+        zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+        try(InputStream in = entry.getValue().getResourceAsStream("/" + toResource(entry.getValue()))) {
+          copy(in, zipOutputStream);
+        }
+        zipOutputStream.closeEntry();
+      }
+    }
+    return jar;
+  }
+
+  private String toResource(Class<?> clazz) {
+    return clazz.getName().replace('.', '/') + ".class";
+  }
+
+  private void copy(InputStream in, ZipOutputStream zipOutputStream) throws IOException {
+    final byte[] buffer = new byte[4096];
+    int bytesRead = in.read(buffer);
+    while (bytesRead > 0) {
+      zipOutputStream.write(buffer, 0, bytesRead);
+      bytesRead = in.read(buffer);
+    }
+  }
+
+  private File makeBigJar(File jar, int copies) throws IOException {
+    final File bigJar = folder.newFile("big.jar");
+    try(ZipFile zipFile = new ZipFile(jar);
+        ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(bigJar))) {
+      for (int copy = 0; copy < copies; copy++) {
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          final ZipEntry entry = entries.nextElement();
+          if (!entry.isDirectory()) {
+            zipOutputStream.putNextEntry(new ZipEntry("copy" + copy + "/" + entry.getName()));
+            try(InputStream in = zipFile.getInputStream(entry)) {
+              copy(in, zipOutputStream);
+            }
+            zipOutputStream.closeEntry();
+          }
+        }
+      }
+    }
+    return bigJar;
+  }
+
+  private List<Artifact> makeArtifactCorpus() throws IOException, URISyntaxException {
+    final List<Artifact> artifacts = new ArrayList<>();
+    artifacts.add(makeArtifact(getCurrentClassFile().getParentFile()));
+    artifacts.add(makeArtifact(getJarOfClass(ClassReader.class)));
+    artifacts.add(makeArtifact(getJarOfClass(Test.class)));
+    artifacts.add(makeArtifact(getJarOfClass(ArtifactStub.class)));
+    artifacts.add(makeJarArtifact("project.jar", ClassInMavenProjectSource.class));
+    artifacts.add(makeJarArtifact("direct.jar", ClassInDirectDependency.class));
+    artifacts.add(makeJarArtifact("transitive.jar",
+      ClassInTransitiveDependency.class,
+      ClassInAnotherTransitiveDependency.class));
+    return artifacts;
+  }
+
+  private Artifact makeJarArtifact(String fileName, Class<?>... classes) throws IOException {
+    final Artifact artifact = makeArtifact(folder.newFile(fileName));
+    artifact.setArtifactId(fileName);
+    ClassFileReference.makeArtifactJarFromClassFile(artifact, classes);
+    return artifact;
+  }
+
+  private File getJarOfClass(Class<?> clazz) throws URISyntaxException {
+    return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
   private File getCurrentClassFile() {
     final String resourcePath = "/" + ArtifactRepositoryAnalyzerTest.class.getName().replace(".", "/") + ".class";
     return new File(ArtifactRepositoryAnalyzerTest.class.getResource(resourcePath).getFile());
@@ -0,0 +1,203 @@
+package de.is24.maven.enforcer.rules;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+
+public class ClassFilePipelineTest {
+  private static final int CLASS_FILE_SIZE = 2048;
+
+  @Test
+  public void readersWaitForParsersIfMemoryIsExhausted() {
+    final List<ClassFilePipeline.Source> sources = makeSources(4, 25);
+    final AtomicInteger parsedBytes = new AtomicInteger();
+
+    // the memory suffices for a single class file only
+    final ClassFilePipeline pipeline = new ClassFilePipeline(2, CLASS_FILE_SIZE);
+    final List<CountingParser> parsers = pipeline.run(null, sources,
+      3,
+      new ClassFilePipeline.ParserFactory<CountingParser>() {
+        @Override
+        public CountingParser newParser() {
+          return new CountingParser(parsedBytes);
+        }
+      });
+
+    int parsedClassFiles = 0;
+    for (CountingParser parser : parsers) {
+      parsedClassFiles += parser.parsedClassFiles;
+    }
+    assertThat(parsers.size(), is(3));
+    assertThat(parsedClassFiles, is(100));
+    assertThat(parsedBytes.get(), is(100 * CLASS_FILE_SIZE));
+    assertThat(pipeline.getClassFiles(), is(100));
+    assertThat(pipeline.getBytes(), is(100L * CLASS_FILE_SIZE));
+    assertThat(pipeline.getMaxQueueDepth() <= 1, is(true));
+    assertThat(pipeline.getReaderStallMillis() > 0, is(true));
+  }
+
+  @Test
+  public void failingParserStopsReaders() {
+    final List<ClassFilePipeline.Source> sources = makeSources(4, 1000);
+
+    final ClassFilePipeline pipeline = new ClassFilePipeline(2, CLASS_FILE_SIZE);
+    try {
+      pipeline.run(null, sources, 1, new ClassFilePipeline.ParserFactory<ClassFilePipeline.Parser>() {
+        @Override
+        public ClassFilePipeline.Parser newParser() {
+          return new ClassFilePipeline.Parser() {
+            @Override
+            public void parse(ClassFilePipeline.Source source, String name, ClassFileBuffer classFile) {
+              throw new IllegalStateException("Unable to parse '" + name + "'.");
+            }
+          };
+        }
+      });
+      fail("The parser's exception should have been thrown!");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage().startsWith("Unable to parse"), is(true));
+    }
+  }
+
+  @Test
+  public void buffersOfUnknownSizeStayWithinMemoryLimit() {
+    final long memoryLimit = 256 * 1024;
+    final int classFileSize = 100 * 1024;
+    final AtomicLong maxReservedMemory = new AtomicLong();
+    final List<ClassFilePipeline.Source> sources = new ArrayList<ClassFilePipeline.Source>();
+    for (int i = 0; i < 4; i++) {
+      sources.add(new ClassFilePipeline.Source() {
+        @Override
+        public void read(ClassFilePipeline pipeline) {
+          for (int k = 0; k < 10; k++) {
+            try {
+              // the buffers grow beyond the memory reserved for class files of unknown size
+              pipeline.submit(this, "Class" + k, new ByteArrayInputStream(new byte[classFileSize]), -1);
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          }
+        }
+      });
+    }
+
+    final ClassFilePipeline pipeline = new ClassFilePipeline(2, memoryLimit);
+    final List<ClassFilePipeline.Parser> parsers = pipeline.run(null, sources,
+      2,
+      new ClassFilePipeline.ParserFactory<ClassFilePipeline.Parser>() {
+        @Override
+        public ClassFilePipeline.Parser newParser() {
+          return new ClassFilePipeline.Parser() {
+            @Override
+            public void parse(ClassFilePipeline.Source source, String name, ClassFileBuffer classFile) {
+              long reservedMemory = pipeline.getReservedMemory();
+              long maxMemory = maxReservedMemory.get();
+              while ((reservedMemory > maxMemory) && !maxReservedMemory.compareAndSet(maxMemory, reservedMemory)) {
+                maxMemory = maxReservedMemory.get();
+              }
+              assertThat(classFile.getLength(), is(classFileSize));
+            }
+          };
+        }
+      });
+
+    assertThat(parsers.size(), is(2));
+    assertThat(pipeline.getClassFiles(), is(40));
+    assertThat(maxReservedMemory.get() <= memoryLimit, is(true));
+    assertThat(pipeline.getReservedMemory(), is(0L));
+  }
+
+  @Test
+  public void failingReadReleasesMemory() {
+    final AtomicInteger failedReads = new AtomicInteger();
+    final List<ClassFilePipeline.Source> sources = new ArrayList<ClassFilePipeline.Source>();
+    for (int i = 0; i < 4; i++) {
+      sources.add(new ClassFilePipeline.Source() {
+        @Override
+        public void read(ClassFilePipeline pipeline) {
+          for (int k = 0; k < 25; k++) {
+            final InputStream classFileStream = ((k % 2) == 0) ? new ByteArrayInputStream(new byte[CLASS_FILE_SIZE])
+              : new InputStream() {
+                @Override
+                public int read() throws IOException {
+                  throw new IOException("Unable to read class file.");
+                }
+              };
+            try {
+              pipeline.submit(this, "Class" + k, classFileStream, CLASS_FILE_SIZE);
+            } catch (IOException e) {
+              failedReads.incrementAndGet();
+            }
+          }
+        }
+      });
+    }
+
+    // the memory suffices for a single buffer only, a lost reservation would block the readers for good
+    final ClassFilePipeline pipeline = new ClassFilePipeline(2, 8 * 1024);
+    final AtomicInteger parsedBytes = new AtomicInteger();
+    pipeline.run(null, sources, 2, new ClassFilePipeline.ParserFactory<CountingParser>() {
+      @Override
+      public CountingParser newParser() {
+        return new CountingParser(parsedBytes);
+      }
+    });
+
+    assertThat(failedReads.get(), is(48));
+    assertThat(pipeline.getClassFiles(), is(52));
+    assertThat(parsedBytes.get(), is(52 * CLASS_FILE_SIZE));
+    assertThat(pipeline.getReservedMemory(), is(0L));
+  }
+
+  private List<ClassFilePipeline.Source> makeSources(int numberOfSources, final int classFilesPerSource) {
+    final List<ClassFilePipeline.Source> sources = new ArrayList<ClassFilePipeline.Source>();
+    for (int i = 0; i < numberOfSources; i++) {
+      sources.add(new ClassFilePipeline.Source() {
+        @Override
+        public void read(ClassFilePipeline pipeline) {
+          for (int k = 0; k < classFilesPerSource; k++) {
+            try {
+              pipeline.submit(this, "Class" + k, new ByteArrayInputStream(new byte[CLASS_FILE_SIZE]),
+                CLASS_FILE_SIZE);
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          }
+        }
+      });
+    }
+    return Collections.unmodifiableList(sources);
+  }
+
+  private static final class CountingParser implements ClassFilePipeline.Parser {
+    private final AtomicInteger parsedBytes;
+    private int parsedClassFiles;
+
+    private CountingParser(AtomicInteger parsedBytes) {
+      this.parsedBytes = parsedBytes;
+    }
+
+    @Override
+    public void parse(ClassFilePipeline.Source source, String name, ClassFileBuffer classFile) {
+      parsedClassFiles++;
+      parsedBytes.addAndGet(classFile.getLength());
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package de.is24.maven.enforcer.rules;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+
+public class ClassFileWalkerTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void listClassFilesOfNestedDirectories() throws IOException {
+    final File directory = folder.newFolder("classes");
+    final Set<File> expectedClassFiles = new HashSet<File>();
+    for (int i = 0; i < 20; i++) {
+      final File packageDirectory = new File(directory, "a/b" + i + "/c" + (i % 3));
+      assertThat(packageDirectory.mkdirs(), is(true));
+      for (int k = 0; k < 5; k++) {
+        final File classFile = new File(packageDirectory, "Type" + k + ".class");
+        assertThat(classFile.createNewFile(), is(true));
+        expectedClassFiles.add(classFile);
+      }
+      assertThat(new File(packageDirectory, "resource.properties").createNewFile(), is(true));
+    }
+
+    assertThat(new HashSet<File>(ClassFileWalker.listClassFiles(directory, 1, null)), is(expectedClassFiles));
+    assertThat(new HashSet<File>(ClassFileWalker.listClassFiles(directory, 4, null)), is(expectedClassFiles));
+    assertThat(ClassFileWalker.listClassFiles(directory, 4, null).size(), is(expectedClassFiles.size()));
+
+    // the pool thread and the caller start two of the workers, the others only find the end of the walk
+    final AnalysisExecutor executor = new AnalysisExecutor(1);
+    try {
+      assertThat(new HashSet<File>(ClassFileWalker.listClassFiles(directory, 4, executor)), is(expectedClassFiles));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void listEmptyDirectory() throws IOException {
+    final File directory = folder.newFolder("empty");
+
+    assertThat(ClassFileWalker.listClassFiles(directory, 1, null).isEmpty(), is(true));
+    assertThat(ClassFileWalker.listClassFiles(directory, 4, null).isEmpty(), is(true));
+  }
+}
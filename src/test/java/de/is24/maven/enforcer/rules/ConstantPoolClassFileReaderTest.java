@@ -0,0 +1,142 @@
+package de.is24.maven.enforcer.rules;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.testing.stubs.ArtifactStub;
+import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.IOUtil;
+import org.hamcrest.Matcher;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+
+public class ConstantPoolClassFileReaderTest {
+  private static final Class<?>[] CORPUS = {
+    ClassReader.class,
+    Test.class,
+    Matcher.class,
+    StringUtils.class,
+    ImmutableList.class,
+    MavenSession.class,
+    PlexusContainer.class,
+    ConstantPoolClassFileReaderTest.class,
+    ConstantPoolClassFileReader.class
+  };
+
+  // the corpus is too big to collect the debug output
+  private final Log logger = new DefaultLog(new ConsoleLogger(Logger.LEVEL_INFO, "test"));
+
+  @Test
+  public void constantPoolReaderFindsSameDependenciesAsAsmVisitor() throws URISyntaxException {
+    for (Class<?> clazz : CORPUS) {
+      final Artifact artifact = makeArtifact(clazz);
+
+      for (AnalysisDepth analysisDepth : AnalysisDepth.values()) {
+        final Repository asmRepository = analyze(artifact, DependencyExtractor.ASM, analysisDepth);
+        final Repository constantPoolRepository = analyze(artifact, DependencyExtractor.CONSTANT_POOL, analysisDepth);
+
+        assertThat(asmRepository.getTypes().isEmpty(), is(false));
+        assertThat(asmRepository.getDependencies().isEmpty(), is(false));
+        assertThat(constantPoolRepository.getTypes(), is(asmRepository.getTypes()));
+        assertThat(constantPoolRepository.getDependencies(), is(asmRepository.getDependencies()));
+      }
+    }
+  }
+
+  @Test
+  public void deeperAnalysisFindsMoreDependencies() throws URISyntaxException {
+    for (DependencyExtractor dependencyExtractor : DependencyExtractor.values()) {
+      final Artifact artifact = makeArtifact(StringUtils.class);
+
+      final Set<String> apiDependencies = analyze(artifact, dependencyExtractor, AnalysisDepth.API).getDependencies();
+      final Set<String> bodyDependencies = analyze(artifact, dependencyExtractor, AnalysisDepth.BODY_REFS)
+        .getDependencies();
+      final Set<String> fullDependencies = analyze(artifact, dependencyExtractor, AnalysisDepth.FULL).getDependencies();
+
+      assertThat(bodyDependencies.containsAll(apiDependencies), is(true));
+      assertThat(fullDependencies.containsAll(bodyDependencies), is(true));
+
+      // some of the types are referenced by method bodies only
+      assertThat(apiDependencies.size() < bodyDependencies.size(), is(true));
+    }
+  }
+
+  @Test
+  public void constantPoolReaderReadsClassNames() throws URISyntaxException {
+    final ClassFilter filter = new ClassFilter(logger, false);
+    final Artifact artifact = makeArtifact(ImmutableList.class);
+
+    final Repository asmRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, filter)
+      .withVerifiedTypeNames(true)
+      .analyzeArtifacts(Collections.singleton(artifact));
+    final Repository constantPoolRepository = ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, filter)
+      .withDependencyExtractor(DependencyExtractor.CONSTANT_POOL)
+      .withVerifiedTypeNames(true)
+      .analyzeArtifacts(Collections.singleton(artifact));
+
+    assertThat(constantPoolRepository.getTypes().contains(ImmutableList.class.getName()), is(true));
+    assertThat(constantPoolRepository.getTypes(), is(asmRepository.getTypes()));
+  }
+
+  @Test
+  public void readersFilterEveryTypeOncePerClass() throws IOException {
+    final byte[] classFile = readClassFile(ClassFilter.class);
+
+    for (DependencyExtractor dependencyExtractor : DependencyExtractor.values()) {
+      final LogStub logger = new LogStub();
+      final Repository repository = new Repository(new ClassFilter(logger, false));
+      final ClassFileReader reader = dependencyExtractor.newClassFileReader(repository, logger, AnalysisDepth.FULL);
+
+      // read the class twice, its dependencies are filtered once per class
+      for (int i = 0; i < 2; i++) {
+        reader.readClassName(classFile, classFile.length);
+        reader.readDependencies();
+      }
+
+      final String suppression = "Suppress type 'java.lang.String'.";
+      assertThat(StringUtils.countMatches(logger.getDebugLog(), suppression), is(2));
+    }
+  }
+
+  private byte[] readClassFile(Class<?> clazz) throws IOException {
+    final InputStream classFile = clazz.getResourceAsStream(clazz.getSimpleName() + ".class");
+    try {
+      return IOUtil.toByteArray(classFile);
+    } finally {
+      classFile.close();
+    }
+  }
+
+  private Repository analyze(Artifact artifact, DependencyExtractor dependencyExtractor,
+                             AnalysisDepth analysisDepth) {
+    return ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, true, new ClassFilter(logger, false))
+      .withDependencyExtractor(dependencyExtractor)
+      .withAnalysisDepth(analysisDepth)
+      .analyzeArtifacts(Collections.singleton(artifact));
+  }
+
+  private Artifact makeArtifact(Class<?> clazz) throws URISyntaxException {
+    final Artifact artifact = new ArtifactStub();
+    artifact.setArtifactId(clazz.getSimpleName());
+    artifact.setGroupId("groupId");
+    artifact.setVersion("1.0");
+    artifact.setFile(new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()));
+    return artifact;
+  }
+}
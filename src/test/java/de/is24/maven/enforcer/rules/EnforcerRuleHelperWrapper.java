@@ -30,6 +30,7 @@ final class EnforcerRuleHelperWrapper implements EnforcerRuleHelper {
   private Artifact projectArtifact;
   private Artifact directDependencyArtifact;
   private Set<Artifact> transitiveDependencyArtifacts;
+  private Object session;
 
   public Artifact getDirectDependencyArtifact() {
     return directDependencyArtifact;
@@ -60,6 +61,11 @@ final class EnforcerRuleHelperWrapper implements EnforcerRuleHelper {
     plexusContainerWrapper = new PlexusContainerWrapper(wrappedEnforcerRuleHelper.getContainer());
   }
 
+  // the modules of a build share their session
+  void setSession(Object session) {
+    this.session = session;
+  }
+
   void addComponent(Object component, Class<?> key) {
     components.put(key.getName(), component);
   }
@@ -105,6 +111,9 @@ final class EnforcerRuleHelperWrapper implements EnforcerRuleHelper {
 
   @Override
   public Object evaluate(String expression) throws ExpressionEvaluationException {
+    if ((session != null) && "${session}".equals(expression)) {
+      return session;
+    }
     return wrappedEnforcerRuleHelper.evaluate(expression);
   }
 
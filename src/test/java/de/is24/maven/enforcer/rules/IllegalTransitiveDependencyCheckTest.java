@@ -23,18 +23,27 @@ import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
 import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -46,6 +55,7 @@ public class IllegalTransitiveDependencyCheckTest {
   private static final String TRANSITIVE_DEPENDENCY_ARTIFACT_ID = "transitive-dependency-artifact";
   private static final String GROUP_ID = "some-group";
   private static final String ARTIFACT_VERSION = "1.0";
+  private static final int CONCURRENT_MODULES = 32;
   @Rule
   public final TemporaryFolder folder = new TemporaryFolder();
   private ArtifactStubFactory factory;
@@ -64,6 +74,205 @@ public class IllegalTransitiveDependencyCheckTest {
     assertThat(new IllegalTransitiveDependencyCheck().isResultValid(null), is(false));
   }
 
+  @Test
+  public void repeatedExecutionReusesResultOfUnchangedInputs() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck firstRule = new IllegalTransitiveDependencyCheck();
+    firstRule.setReportOnly(true);
+    firstRule.setRegexIgnoredClasses(new String[]{""});
+    TestEnforcerRuleUtils.execute(firstRule, helper, false);
+
+    final IllegalTransitiveDependencyCheck secondRule = new IllegalTransitiveDependencyCheck();
+    secondRule.setReportOnly(true);
+    secondRule.setRegexIgnoredClasses(new String[]{""});
+    TestEnforcerRuleUtils.execute(secondRule, helper, false);
+
+    assertThat(countReusedResults(helper), is(1));
+
+    // another configuration must not reuse the result
+    final IllegalTransitiveDependencyCheck otherRule = new IllegalTransitiveDependencyCheck();
+    otherRule.setReportOnly(true);
+    otherRule.setRegexIgnoredClasses(new String[]{""});
+    otherRule.setSuppressTypesFromJavaRuntime(true);
+    TestEnforcerRuleUtils.execute(otherRule, helper, false);
+
+    assertThat(countReusedResults(helper), is(1));
+    assertNumberOfIllegalTransitiveDependencies(helper, 3);
+  }
+
+  @Test
+  public void javaRuntimeReleaseDefaultsToTargetRelease() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setSuppressTypesFromJavaRuntime(true);
+    rule.setTargetRelease(8);
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(helper.getLog().getInfoLog(),
+      containsString("Classes of the Java runtime are taken from Java release 8."));
+  }
+
+  @Test
+  public void javaRuntimeReleaseIsConfiguredApartFromTargetRelease() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setSuppressTypesFromJavaRuntime(true);
+    rule.setTargetRelease(11);
+    rule.setJavaRuntimeRelease(8);
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    final String infoLog = helper.getLog().getInfoLog();
+    assertThat(infoLog, containsString("Multi-release JARs are analyzed for Java release 11."));
+    assertThat(infoLog, containsString("Classes of the Java runtime are taken from Java release 8."));
+    assertThat(infoLog, not(containsString("Types of Java release 11")));
+  }
+
+  @Test
+  public void changedClassesOfDirectoryAreAnalyzedAgain() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+    final File classesDirectory = folder.newFolder("classes");
+    final String resource = ClassInMavenProjectSource.class.getName().replace('.', '/') + ".class";
+    final File classFile = new File(classesDirectory, resource);
+    assertThat(classFile.getParentFile().mkdirs(), is(true));
+    try (InputStream in = ClassInMavenProjectSource.class.getResourceAsStream("/" + resource)) {
+      Files.copy(in, classFile.toPath());
+    }
+    prepareBuild(helper, "target").setOutputDirectory(classesDirectory.getAbsolutePath());
+
+    // classes compiled right before the first analysis may have changed during it, their result is never reused
+    setLastModified(classesDirectory, System.currentTimeMillis() - 60000);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setUseClassesFromLastBuild(true);
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(countReusedResults(helper), is(1));
+
+    assertThat(classFile.setLastModified(System.currentTimeMillis()), is(true));
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(countReusedResults(helper), is(1));
+  }
+
+  @Test
+  public void changedTransitiveDependenciesAreListedAgain() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+    final Set<Artifact> transitiveDependencies = new HashSet<>(helper.getTransitiveDependencyArtifacts());
+    helper.getContainer().addComponent(new DependencyGraphBuilder() {
+      @Override
+      public DependencyNode buildDependencyGraph(MavenProject mavenProject, ArtifactFilter artifactFilter) {
+        final DefaultDependencyNode root = new DefaultDependencyNode(null, mavenProject.getArtifact(), null, null,
+          null);
+        final List<DependencyNode> children = new ArrayList<>();
+        for (Artifact transitiveDependency : transitiveDependencies) {
+          children.add(new DefaultDependencyNode(root, transitiveDependency, null, null, null));
+        }
+        root.setChildren(children);
+        return root;
+      }
+    }, DependencyGraphBuilder.class, "default");
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setListMissingArtifacts(true);
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(countReusedResults(helper), is(1));
+    assertNonJdkDependenciesAreListedWithArtifactId(helper);
+
+    // the dependency graph doesn't provide one of the transitive dependencies anymore
+    transitiveDependencies.clear();
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(countReusedResults(helper), is(1));
+  }
+
+  @Test
+  public void concurrentModulesShareRule() throws Exception {
+    // the modules have other direct dependencies and so other illegal transitive dependencies
+    final List<List<Class<?>>> directDependencyClasses = Arrays.asList(
+      Arrays.<Class<?>>asList(ClassInDirectDependency.class, EnumInClassInDirectDependency.class),
+      Arrays.<Class<?>>asList(ClassInDirectDependency.class, EnumInClassInDirectDependency.class,
+        ClassInTransitiveDependency.class, SomeUsefulAnnotation.class),
+      Arrays.<Class<?>>asList(ClassInDirectDependency.class, EnumInClassInDirectDependency.class,
+        ClassInAnotherTransitiveDependency.class));
+    final List<Set<Class<?>>> illegalTransitiveDependencies = Arrays.asList(
+      new HashSet<Class<?>>(Arrays.asList(ClassInAnotherTransitiveDependency.class, ClassInTransitiveDependency.class,
+        SomeUsefulAnnotation.class)),
+      Collections.<Class<?>>singleton(ClassInAnotherTransitiveDependency.class),
+      new HashSet<Class<?>>(Arrays.asList(ClassInTransitiveDependency.class, SomeUsefulAnnotation.class)));
+
+    final List<EnforcerRuleHelperWrapper> helpers = new ArrayList<>();
+    for (int i = 0; i < CONCURRENT_MODULES; i++) {
+      final ArtifactStubFactory moduleFactory = new ArtifactStubFactory();
+      moduleFactory.setWorkingDir(folder.newFolder("module" + i));
+      moduleFactory.setCreateFiles(true);
+      final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR,
+        moduleFactory);
+      helper.getProjectArtifact().setArtifactId("module" + i);
+      final List<Class<?>> classes = directDependencyClasses.get(i % directDependencyClasses.size());
+      ClassFileReference.makeArtifactJarFromClassFile(helper.getDirectDependencyArtifact(),
+        classes.toArray(new Class<?>[classes.size()]));
+      if (!helpers.isEmpty()) {
+        helper.setSession(helpers.get(0).evaluate("${session}"));
+      }
+      helpers.add(helper);
+    }
+
+    // Maven may execute a configured rule for several modules at the same time
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setSuppressTypesFromJavaRuntime(true);
+
+    final List<Callable<Void>> modules = new ArrayList<>();
+    for (final EnforcerRuleHelperWrapper helper : helpers) {
+      modules.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          rule.execute(helper);
+          return null;
+        }
+      });
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_MODULES / 2);
+    try {
+      for (Future<Void> module : executor.invokeAll(modules)) {
+        module.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // every module reports the illegal transitive dependencies of its own analysis only
+    for (int i = 0; i < CONCURRENT_MODULES; i++) {
+      final EnforcerRuleHelperWrapper helper = helpers.get(i);
+      final Set<Class<?>> expectedTypes = illegalTransitiveDependencies.get(i % illegalTransitiveDependencies.size());
+      final String errorLog = helper.getLog().getErrorLog();
+      assertThat(errorLog.indexOf("Found "), is(errorLog.lastIndexOf("Found ")));
+      assertThat(helper.getLog().getDebugLog(),
+        containsString(helper.getDirectDependencyArtifact().getFile().getPath()));
+      assertThat(errorLog, containsString("Found " + expectedTypes.size() +
+        " illegal transitive type dependencies in artifact '" + GROUP_ID + ":module" + i + ":jar:" + ARTIFACT_VERSION +
+        "'"));
+      for (Class<?> type : Arrays.asList(ClassInAnotherTransitiveDependency.class, ClassInTransitiveDependency.class,
+          SomeUsefulAnnotation.class)) {
+        assertThat(errorLog.contains(".) " + type.getName() + "\n"), is(expectedTypes.contains(type)));
+      }
+    }
+  }
+
   @Test
   public void ruleFiresExceptionOnTransitiveDependency() throws IOException {
     final EnforcerRuleHelper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
@@ -140,6 +349,242 @@ public class IllegalTransitiveDependencyCheckTest {
     assertNonJdkDependenciesAreListedWithArtifactId(helper);
   }
 
+  @Test
+  public void ruleListsArtifactsResolvedByMaven() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setListMissingArtifacts(true);
+
+    // Maven has resolved the project's artifacts already
+    resolveArtifactsLikeMaven(helper);
+
+    final DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder() {
+      @Override
+      public DependencyNode buildDependencyGraph(MavenProject mavenProject, ArtifactFilter artifactFilter) {
+        throw new AssertionError("The dependency graph is built although all artifacts have been resolved!");
+      }
+    };
+    helper.getContainer().addComponent(dependencyGraphBuilder, DependencyGraphBuilder.class, "default");
+
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertNumberOfIllegalTransitiveDependencies(helper, 7);
+    assertNonJdkDependenciesAreListedWithArtifactId(helper);
+  }
+
+  @Test
+  public void ruleBuildsDependencyGraphIfMavenHasResolvedAnotherScope() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setListMissingArtifacts(true);
+
+    // Maven has resolved the compile scope, the direct dependency of scope test is missing
+    resolveArtifactsLikeMaven(helper);
+    final Artifact directDependency = helper.getDirectDependencyArtifact();
+    final Artifact testDependency = factory.createArtifact(GROUP_ID, "test-dependency", ARTIFACT_VERSION,
+      Artifact.SCOPE_TEST);
+    ClassFileReference.makeArtifactJarFromClassFile(testDependency, ClassInDirectDependency.class);
+    lookupProject(helper).setDependencyArtifacts(new HashSet<>(Arrays.asList(directDependency, testDependency)));
+
+    final List<MavenProject> graphs = new ArrayList<>();
+    final DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder() {
+      @Override
+      public DependencyNode buildDependencyGraph(MavenProject mavenProject, ArtifactFilter artifactFilter) {
+        graphs.add(mavenProject);
+        final DefaultDependencyNode root = new DefaultDependencyNode(null, mavenProject.getArtifact(), null, null,
+          null);
+        final DefaultDependencyNode direct = new DefaultDependencyNode(root, directDependency, null, null, null);
+        root.setChildren(Arrays.<DependencyNode>asList(direct,
+          new DefaultDependencyNode(root, testDependency, null, null, null)));
+
+        final List<DependencyNode> transitives = new ArrayList<>();
+        for (Artifact transitiveArtifact : helper.getTransitiveDependencyArtifacts()) {
+          transitives.add(new DefaultDependencyNode(direct, transitiveArtifact, null, null, null));
+        }
+        direct.setChildren(transitives);
+        return root;
+      }
+    };
+    helper.getContainer().addComponent(dependencyGraphBuilder, DependencyGraphBuilder.class, "default");
+
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(graphs.size(), is(1));
+    assertThat(helper.getLog().getDebugLog(), containsString("Direct dependency '" + testDependency.getId() +
+      "' (scope 'test') hasn't been resolved"));
+    assertNumberOfIllegalTransitiveDependencies(helper, 7);
+    assertNonJdkDependenciesAreListedWithArtifactId(helper);
+  }
+
+  @Test
+  public void parallelAnalysisReportsSameViolations() throws IOException {
+    final EnforcerRuleHelperWrapper sequentialHelper = prepareProjectWithIllegalTransitiveDependencies(
+      ArtifactFileType.JAR);
+    final File sequentialReport = prepareReport(sequentialHelper, "sequential");
+    final IllegalTransitiveDependencyCheck sequentialRule = new IllegalTransitiveDependencyCheck();
+    sequentialRule.setReportOnly(true);
+    sequentialRule.setRegexIgnoredClasses(new String[]{""});
+
+    TestEnforcerRuleUtils.execute(sequentialRule, sequentialHelper, false);
+
+    // the artifacts of the parallel analysis are other files, the sequential analysis' result can't be reused
+    final ArtifactStubFactory parallelFactory = new ArtifactStubFactory();
+    parallelFactory.setWorkingDir(folder.newFolder("parallel-repository"));
+    parallelFactory.setCreateFiles(true);
+    final EnforcerRuleHelperWrapper parallelHelper = prepareProjectWithIllegalTransitiveDependencies(
+      ArtifactFileType.JAR, parallelFactory);
+    final File parallelReport = prepareReport(parallelHelper, "parallel");
+    final IllegalTransitiveDependencyCheck parallelRule = new IllegalTransitiveDependencyCheck();
+    parallelRule.setReportOnly(true);
+    parallelRule.setRegexIgnoredClasses(new String[]{""});
+    parallelRule.setThreads(4);
+
+    TestEnforcerRuleUtils.execute(parallelRule, parallelHelper, false);
+
+    assertThat(parallelHelper.getLog().getInfoLog(), containsString("analyzed using 4 threads."));
+    assertThat(parallelHelper.getLog().getInfoLog(), not(containsString("reuse its result")));
+    assertThat(readReport(parallelReport), containsString(ClassInTransitiveDependency.class.getName()));
+    assertThat(readReport(parallelReport), is(readReport(sequentialReport)));
+  }
+
+  @Test
+  public void spillingAnalysisReportsSameViolations() throws IOException {
+    final EnforcerRuleHelperWrapper inMemoryHelper = prepareProjectWithIllegalTransitiveDependencies(
+      ArtifactFileType.JAR);
+    final IllegalTransitiveDependencyCheck inMemoryRule = new IllegalTransitiveDependencyCheck();
+    inMemoryRule.setReportOnly(true);
+    inMemoryRule.setRegexIgnoredClasses(new String[]{""});
+
+    TestEnforcerRuleUtils.execute(inMemoryRule, inMemoryHelper, false);
+
+    // the few types of the test's artifacts stay below the threshold of 1 MB, their runs are merged in memory
+    final EnforcerRuleHelperWrapper spillingHelper = prepareProjectWithIllegalTransitiveDependencies(
+      ArtifactFileType.JAR);
+    final IllegalTransitiveDependencyCheck spillingRule = new IllegalTransitiveDependencyCheck();
+    spillingRule.setReportOnly(true);
+    spillingRule.setRegexIgnoredClasses(new String[]{""});
+    spillingRule.setSpillHeapThreshold(1);
+
+    TestEnforcerRuleUtils.execute(spillingRule, spillingHelper, false);
+
+    assertThat(spillingHelper.getLog().getInfoLog(), not(containsString("spilled ")));
+    assertThat(spillingHelper.getLog().getErrorLog(), is(inMemoryHelper.getLog().getErrorLog()));
+    assertNumberOfIllegalTransitiveDependencies(spillingHelper, 7);
+  }
+
+  @Test
+  public void failingFastAnalysisReportsSameViolationsBelowLimit() throws IOException {
+    final EnforcerRuleHelperWrapper completeHelper = prepareProjectWithIllegalTransitiveDependencies(
+      ArtifactFileType.JAR);
+    final IllegalTransitiveDependencyCheck completeRule = new IllegalTransitiveDependencyCheck();
+    completeRule.setReportOnly(true);
+    completeRule.setRegexIgnoredClasses(new String[]{""});
+
+    TestEnforcerRuleUtils.execute(completeRule, completeHelper, false);
+
+    final EnforcerRuleHelperWrapper failingFastHelper = prepareProjectWithIllegalTransitiveDependencies(
+      ArtifactFileType.JAR);
+    final IllegalTransitiveDependencyCheck failingFastRule = new IllegalTransitiveDependencyCheck();
+    failingFastRule.setReportOnly(true);
+    failingFastRule.setRegexIgnoredClasses(new String[]{""});
+    failingFastRule.setMaxViolations(100);
+
+    TestEnforcerRuleUtils.execute(failingFastRule, failingFastHelper, false);
+
+    assertThat(failingFastHelper.getLog().getWarnLog(),
+      containsString("Found illegal transitive type dependency 'de.is24.maven.enforcer.rules.testtypes."));
+    assertThat(failingFastHelper.getLog().getErrorLog(), is(completeHelper.getLog().getErrorLog()));
+    assertNumberOfIllegalTransitiveDependencies(failingFastHelper, 7);
+  }
+
+  @Test
+  public void failingFastAnalysisStopsAtLimit() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setMaxViolations(2);
+
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(helper.getLog().getWarnLog(), containsString("Stopped analysis of 'some-group:some-artifact:jar:1.0'"));
+    assertThat(helper.getLog().getErrorLog(), containsString("Analysis stopped after 'maxViolations' (2)"));
+    assertNumberOfIllegalTransitiveDependencies(helper, 2);
+  }
+
+  @Test
+  public void packageGranularityReportsPackagesOfOtherArtifacts() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setGranularity("package");
+
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    // the package of the transitively used test types is provided by the direct dependency as well
+    final String errorLog = helper.getLog().getErrorLog();
+    assertThat(errorLog, containsString(
+      "Found 4 illegal transitive package dependencies in artifact 'some-group:some-artifact:jar:1.0'"));
+    assertThat(errorLog, containsString(".) org.w3c.dom\n"));
+    assertThat(errorLog, containsString(".) javax.sql\n"));
+    assertThat(errorLog, not(containsString("testtypes")));
+    assertThat(errorLog, not(containsString("org.w3c.dom.Text")));
+  }
+
+  @Test
+  public void packageGranularityDrillsDownToClasses() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setGranularity("package");
+    rule.setDrillDownPackages(true);
+
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    final String errorLog = helper.getLog().getErrorLog();
+    assertThat(errorLog, containsString(".) org.w3c.dom\n     - org.w3c.dom.Text\n"));
+    assertThat(errorLog, containsString(".) javax.sql\n     - javax.sql.DataSource\n"));
+    assertThat(errorLog, not(containsString("testtypes")));
+  }
+
+  @Test
+  public void constantPoolExtractorReportsSameViolations() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setReportOnly(true);
+    rule.setRegexIgnoredClasses(new String[]{""});
+    rule.setDependencyExtractor("constant_pool");
+
+    TestEnforcerRuleUtils.execute(rule, helper, false);
+
+    assertThat(helper.getLog().getInfoLog(), containsString("extracted by engine 'CONSTANT_POOL'"));
+    assertNumberOfIllegalTransitiveDependencies(helper, 7);
+    assertNonJdkDependenciesAreListed(helper);
+    assertJdkDependenciesAreListed(helper);
+  }
+
+  @Test
+  public void unknownDependencyExtractorFails() throws IOException {
+    final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType.JAR);
+
+    final IllegalTransitiveDependencyCheck rule = new IllegalTransitiveDependencyCheck();
+    rule.setDependencyExtractor("bytecode-magic");
+
+    TestEnforcerRuleUtils.execute(rule, helper, true);
+  }
+
   @Test
   public void tryToUseExistingTargetClassesDirectory() throws IOException {
     final EnforcerRuleHelperWrapper helper = prepareProjectWithIllegalTransitiveDependencies(
@@ -195,6 +640,60 @@ public class IllegalTransitiveDependencyCheckTest {
     assertNonJdkDependenciesAreListed(helper);
   }
 
+  // the report is written to the project's build directory
+  private File prepareReport(EnforcerRuleHelperWrapper helper, String buildDirectory) throws IOException {
+    final Build build = prepareBuild(helper, buildDirectory);
+    return new File(build.getDirectory(),
+      "itd-" + GROUP_ID + "-" + ARTIFACT_ID + "-jar-" + ARTIFACT_VERSION + ".txt");
+  }
+
+  private Build prepareBuild(EnforcerRuleHelperWrapper helper, String buildDirectory) throws IOException {
+    final Build build = new Build();
+    build.setDirectory(folder.newFolder(buildDirectory).getAbsolutePath());
+    lookupProject(helper).setBuild(build);
+    return build;
+  }
+
+  private static MavenProject lookupProject(EnforcerRuleHelperWrapper helper) {
+    try {
+      return (MavenProject) helper.evaluate("${project}");
+    } catch (ExpressionEvaluationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // the project's artifacts are resolved with the trails Maven records, from the project to the artifact
+  private static void resolveArtifactsLikeMaven(EnforcerRuleHelperWrapper helper) {
+    final String projectId = helper.getProjectArtifact().getId();
+    final Artifact directDependency = helper.getDirectDependencyArtifact();
+    directDependency.setResolved(true);
+    directDependency.setDependencyTrail(Arrays.asList(projectId, directDependency.getId()));
+    for (Artifact transitiveArtifact : helper.getTransitiveDependencyArtifacts()) {
+      transitiveArtifact.setResolved(true);
+      transitiveArtifact.setDependencyTrail(Arrays.asList(projectId,
+        directDependency.getId(),
+        transitiveArtifact.getId()));
+    }
+  }
+
+  private static String readReport(File report) throws IOException {
+    return new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private static int countReusedResults(EnforcerRuleHelperWrapper helper) {
+    return helper.getLog().getInfoLog().split("reuse its result", -1).length - 1;
+  }
+
+  private static void setLastModified(File file, long time) {
+    final File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        setLastModified(child, time);
+      }
+    }
+    assertThat(file.setLastModified(time), is(true));
+  }
+
   private void assertNumberOfIllegalTransitiveDependencies(EnforcerRuleHelperWrapper helper, int number) {
     assertThat(helper.getLog().getErrorLog(),
       containsString(
@@ -238,6 +737,12 @@ public class IllegalTransitiveDependencyCheckTest {
 
   private EnforcerRuleHelperWrapper prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType artifactFileType)
     throws IOException {
+    return prepareProjectWithIllegalTransitiveDependencies(artifactFileType, factory);
+  }
+
+  private EnforcerRuleHelperWrapper prepareProjectWithIllegalTransitiveDependencies(ArtifactFileType artifactFileType,
+                                                                                    ArtifactStubFactory factory)
+    throws IOException {
     final MockProject project = new MockProject() {
       private Build build;
 
@@ -0,0 +1,78 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Text;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+
+public class JavaRuntimeTypesTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void typesOfCurrentJavaRuntimeAreCollected() {
+    final JavaRuntimeTypes runtimeTypes = JavaRuntimeTypes.load(new LogStub(), 0, null);
+
+    assertThat(runtimeTypes.contains(DataSource.class.getName()), is(true));
+    assertThat(runtimeTypes.contains(Text.class.getName()), is(true));
+    assertThat(runtimeTypes.contains(StringUtils.class.getName()), is(false));
+    assertThat(runtimeTypes.contains("javax.sql.NoSuchTypeInAnyJavaRuntime"), is(false));
+  }
+
+  @Test
+  public void typesOfJavaRuntimeAreReadFromTypeIndexCache() throws Exception {
+    final LogStub logger = new LogStub();
+    final TypeIndexCache typeIndexCache = new TypeIndexCache(folder.newFolder("cache"), Long.MAX_VALUE, logger);
+
+    final JavaRuntimeTypes collectedTypes = JavaRuntimeTypes.load(logger, 0, typeIndexCache);
+    assertThat(logger.getInfoLog(), containsString("Collected " + collectedTypes.size() + " types of Java runtime"));
+
+    final JavaRuntimeTypes cachedTypes = JavaRuntimeTypes.load(logger, 0, typeIndexCache);
+    assertThat(logger.getDebugLog(), containsString("from type index cache"));
+    assertThat(cachedTypes.size(), is(collectedTypes.size()));
+    assertThat(cachedTypes.contains(DataSource.class.getName()), is(true));
+    assertThat(cachedTypes.getDescription(), is(collectedTypes.getDescription()));
+  }
+
+  @Test
+  public void concurrentCallersShareTypesCollectedOnce() throws Exception {
+    final LogStub logger = new LogStub();
+
+    // a release no other test asks for, the types of the current Java runtime are collected in its place
+    final List<Callable<JavaRuntimeTypes>> callers = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      callers.add(new Callable<JavaRuntimeTypes>() {
+        @Override
+        public JavaRuntimeTypes call() {
+          return JavaRuntimeTypes.forRelease(logger, 99, null);
+        }
+      });
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(callers.size());
+    try {
+      final List<Future<JavaRuntimeTypes>> runtimeTypes = executor.invokeAll(callers);
+      for (Future<JavaRuntimeTypes> types : runtimeTypes) {
+        assertThat(types.get(), sameInstance(runtimeTypes.get(0).get()));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(StringUtils.countMatches(logger.getInfoLog(), "Collected "), is(1));
+  }
+}
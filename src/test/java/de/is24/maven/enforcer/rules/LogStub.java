@@ -4,10 +4,10 @@ import org.apache.maven.plugin.logging.Log;
 
 
 final class LogStub implements Log {
-  private final StringBuilder debugLog = new StringBuilder();
-  private final StringBuilder infoLog = new StringBuilder();
-  private final StringBuilder warnLog = new StringBuilder();
-  private final StringBuilder errorLog = new StringBuilder();
+  private final StringBuffer debugLog = new StringBuffer();
+  private final StringBuffer infoLog = new StringBuffer();
+  private final StringBuffer warnLog = new StringBuffer();
+  private final StringBuffer errorLog = new StringBuffer();
 
   @Override
   public boolean isDebugEnabled() {
@@ -3,6 +3,9 @@ package de.is24.maven.enforcer.rules;
 import org.apache.maven.plugin.logging.Log;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.Set;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -55,4 +58,47 @@ public class RepositoryTest {
     assertThat(repository.getDependencies().size(), is(1));
     assertThat(repository.getDependencies().iterator().next(), is("de.is24.Type"));
   }
+
+  @Test
+  public void testUnresolvedDependencies() {
+    final ClassFilter filter = new ClassFilter(logger, false);
+    final Repository artifactRepository = new Repository(filter);
+    artifactRepository.addType("de.is24.Type");
+    artifactRepository.addDependency("de.is24.Type");
+    artifactRepository.addDependency("de.is24.DirectType");
+    artifactRepository.addDependency("de.is24.TransitiveType");
+
+    final Repository dependenciesRepository = new Repository(filter);
+    dependenciesRepository.addType("de.is24.DirectType");
+    dependenciesRepository.addType("de.is24.UnusedType");
+
+    // a repository of another filter doesn't share the symbol table
+    final Repository otherRepository = new Repository(new ClassFilter(logger, false));
+    otherRepository.addType("de.is24.OtherType");
+
+    assertThat(artifactRepository.getUnresolvedDependencies(artifactRepository, dependenciesRepository),
+      is((Set<String>) Collections.singleton("de.is24.TransitiveType")));
+    assertThat(artifactRepository.getUnresolvedDependencies(otherRepository).size(), is(3));
+
+    otherRepository.addType("de.is24.TransitiveType");
+    assertThat(artifactRepository.getUnresolvedDependencies(otherRepository, dependenciesRepository),
+      is((Set<String>) Collections.singleton("de.is24.Type")));
+  }
+
+  @Test
+  public void testAddAll() {
+    final ClassFilter filter = new ClassFilter(logger, false);
+    final Repository repository = new Repository(filter);
+    repository.addType("de.is24.Type");
+
+    final Repository sameFilterRepository = new Repository(filter);
+    sameFilterRepository.addAll(repository);
+    final Repository otherFilterRepository = new Repository(new ClassFilter(logger, false));
+    otherFilterRepository.addAll(repository);
+
+    assertThat(sameFilterRepository.getTypes(), is(repository.getTypes()));
+    assertThat(otherFilterRepository.getTypes(), is(repository.getTypes()));
+    assertThat(otherFilterRepository.getTypes().contains("de.is24.Type"), is(true));
+    assertThat(otherFilterRepository.getTypes().contains("de.is24.Unknown"), is(false));
+  }
 }
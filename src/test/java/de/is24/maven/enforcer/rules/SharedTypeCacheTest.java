@@ -0,0 +1,142 @@
+package de.is24.maven.enforcer.rules;
+
+import de.is24.maven.enforcer.rules.testtypes.ClassInAnotherTransitiveDependency;
+import de.is24.maven.enforcer.rules.testtypes.ClassInDirectDependency;
+import de.is24.maven.enforcer.rules.testtypes.ClassInTransitiveDependency;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.testing.stubs.ArtifactStub;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+
+public class SharedTypeCacheTest {
+  private static final int MODULES = 8;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void concurrentModulesAnalyzeEveryJarOnce() throws Exception {
+    final List<Artifact> artifacts = new ArrayList<>();
+    artifacts.add(makeJarArtifact("direct.jar", ClassInDirectDependency.class));
+    artifacts.add(makeJarArtifact("transitive.jar", ClassInTransitiveDependency.class));
+    artifacts.add(makeJarArtifact("another-transitive.jar", ClassInAnotherTransitiveDependency.class));
+
+    final SharedTypeCache sharedTypeCache = new SharedTypeCache(Long.MAX_VALUE);
+    final List<Callable<Repository>> modules = new ArrayList<>();
+    for (int i = 0; i < MODULES; i++) {
+      modules.add(new Callable<Repository>() {
+        @Override
+        public Repository call() {
+          final LogStub logger = new LogStub();
+          return ArtifactRepositoryAnalyzer.analyzeArtifacts(logger, false, new ClassFilter(logger, false))
+            .withVerifiedTypeNames(true)
+            .withSharedTypeCache(sharedTypeCache)
+            .analyzeArtifacts(artifacts);
+        }
+      });
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(MODULES);
+    try {
+      for (Future<Repository> repository : executor.invokeAll(modules)) {
+        assertThat(repository.get().getTypes().size(), is(3));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(sharedTypeCache.getMisses(), is(3));
+    assertThat(sharedTypeCache.getHits(), is((MODULES - 1) * 3));
+    assertThat(sharedTypeCache.describeStatistics(), containsString("21 hits, 3 misses, 0 evictions, 3 JARs"));
+  }
+
+  @Test
+  public void leastRecentlyUsedJarsAreEvicted() {
+    final LogStub logger = new LogStub();
+    final Repository repository = new Repository(new ClassFilter(logger, false));
+    repository.addType("a.b.C");
+
+    final SharedTypeCache unboundedCache = new SharedTypeCache(Long.MAX_VALUE);
+    complete(unboundedCache, "first", repository);
+    final long entrySize = unboundedCache.getSize();
+
+    final SharedTypeCache boundedCache = new SharedTypeCache(2 * entrySize);
+    complete(boundedCache, "first", repository);
+    complete(boundedCache, "second", repository);
+
+    // use the first JAR, the second one is the least recently used one now
+    assertThat(boundedCache.putIfAbsent("first", new SharedTypeCache.Entry()) == null, is(false));
+    complete(boundedCache, "third", repository);
+
+    assertThat(boundedCache.getEvictions(), is(1));
+    assertThat(boundedCache.getSize(), is(2 * entrySize));
+    assertThat(boundedCache.putIfAbsent("first", new SharedTypeCache.Entry()) == null, is(false));
+    assertThat(boundedCache.putIfAbsent("second", new SharedTypeCache.Entry()), nullValue());
+  }
+
+  @Test
+  public void failedAnalysisIsPassedToWaitingModules() {
+    final LogStub logger = new LogStub();
+    final SharedTypeCache sharedTypeCache = new SharedTypeCache(Long.MAX_VALUE);
+
+    final SharedTypeCache.Entry entry = new SharedTypeCache.Entry();
+    assertThat(sharedTypeCache.putIfAbsent("jar", entry), nullValue());
+    final SharedTypeCache.Entry awaitedEntry = sharedTypeCache.putIfAbsent("jar", new SharedTypeCache.Entry());
+    assertThat(awaitedEntry, sameInstance(entry));
+
+    final IllegalStateException failure = new IllegalStateException("Unable to read JAR!");
+    sharedTypeCache.fail("jar", entry, failure);
+
+    try {
+      awaitedEntry.addTo(new Repository(new ClassFilter(logger, false)));
+      fail("The failure of the analysis should have been thrown!");
+    } catch (IllegalStateException e) {
+      assertThat(e.getCause(), sameInstance((Throwable) failure));
+    }
+
+    // the next module analyzes the JAR again
+    assertThat(sharedTypeCache.putIfAbsent("jar", new SharedTypeCache.Entry()), nullValue());
+  }
+
+  @Test
+  public void modulesOfSameSessionShareCache() {
+    final Object session = new Object();
+
+    assertThat(SharedTypeCache.forSession(session, 1024), sameInstance(SharedTypeCache.forSession(session, 1024)));
+    assertThat(SharedTypeCache.forSession(new Object(), 1024) == SharedTypeCache.forSession(session, 1024),
+      is(false));
+  }
+
+  private void complete(SharedTypeCache sharedTypeCache, String key, Repository repository) {
+    final SharedTypeCache.Entry entry = new SharedTypeCache.Entry();
+    assertThat(sharedTypeCache.putIfAbsent(key, entry), nullValue());
+    sharedTypeCache.complete(key, entry, repository);
+  }
+
+  private Artifact makeJarArtifact(String fileName, Class<?>... classes) throws IOException {
+    final Artifact artifact = new ArtifactStub();
+    artifact.setArtifactId(fileName);
+    artifact.setGroupId("groupId");
+    artifact.setVersion("1.0");
+    artifact.setFile(folder.newFile(fileName));
+    ClassFileReference.makeArtifactJarFromClassFile(artifact, classes);
+    return artifact;
+  }
+}
@@ -0,0 +1,112 @@
+package de.is24.maven.enforcer.rules;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+
+public class SpilledTypesTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void unknownTypesAreFoundByMergingSpilledRuns() throws Exception {
+    final File directory = folder.newFolder("spill");
+
+    // every type exceeds the threshold, every added type becomes a run
+    final SpilledTypes spilledTypes = new SpilledTypes(directory, 0, new LogStub());
+    spilledTypes.addAll(Arrays.asList("c.Type", "a.Type", "e.Type"));
+    spilledTypes.addAll(Arrays.asList("b.Type", "c.Type"));
+    spilledTypes.addAll(Arrays.asList("f.Type"));
+
+    final SpilledTypes candidateTypes = new SpilledTypes(directory, 0, new LogStub());
+    candidateTypes.addAll(Arrays.asList("g.Type", "c.Type", "d.Type", "a.Type", "0.Type", "f.Type", "d.Type"));
+
+    assertThat(spilledTypes.getRuns(), is(6));
+    assertThat(spilledTypes.findUnknownTypes(candidateTypes), is(Arrays.asList("0.Type", "d.Type", "g.Type")));
+
+    spilledTypes.delete();
+    candidateTypes.delete();
+    assertThat(directory.list().length, is(0));
+  }
+
+  @Test
+  public void typesBelowThresholdStayInMemory() throws Exception {
+    final File directory = new File(folder.getRoot(), "spill");
+
+    final SpilledTypes spilledTypes = new SpilledTypes(directory, Long.MAX_VALUE, new LogStub());
+    spilledTypes.addAll(Arrays.asList("b.Type", "a.Type"));
+
+    assertThat(spilledTypes.getRuns(), is(0));
+    assertThat(spilledTypes.findUnknownTypes(inMemory(directory, "c.Type", "a.Type")), is(Arrays.asList("c.Type")));
+    assertThat(directory.exists(), is(false));
+  }
+
+  @Test
+  public void typesAreSpilledOnceTheyExceedThreshold() throws Exception {
+    final File directory = folder.newFolder("spill");
+
+    // the threshold is about the heap of a few types, independent of the heap used by anything else
+    final SpilledTypes spilledTypes = new SpilledTypes(directory, 1024, new LogStub());
+    final List<String> types = typesOf("a.Type", 100);
+    spilledTypes.addAll(types);
+
+    assertThat(spilledTypes.getRuns() > 1, is(true));
+    assertThat(spilledTypes.getRuns() < types.size() / 2, is(true));
+    assertThat(spilledTypes.findUnknownTypes(inMemory(directory, types)).isEmpty(), is(true));
+
+    spilledTypes.delete();
+  }
+
+  @Test
+  public void manyRunsAreMergedIntoFewer() throws Exception {
+    final File directory = folder.newFolder("spill");
+
+    final SpilledTypes spilledTypes = new SpilledTypes(directory, 0, new LogStub());
+    final List<String> types = typesOf("a.Type", 100);
+    spilledTypes.addAll(types);
+    assertThat(spilledTypes.getRuns(), is(types.size()));
+
+    final SpilledTypes candidateTypes = new SpilledTypes(directory, 0, new LogStub());
+    final List<String> candidates = new ArrayList<>(types.subList(0, 50));
+    candidates.addAll(typesOf("b.Type", 50));
+    candidateTypes.addAll(candidates);
+
+    // no more runs than the fan-in are ever open at once
+    assertThat(spilledTypes.findUnknownTypes(candidateTypes), is(typesOf("b.Type", 50)));
+    assertThat(spilledTypes.getRuns() <= 16, is(true));
+    assertThat(candidateTypes.getRuns() <= 16, is(true));
+    assertThat(directory.list().length, is(spilledTypes.getRuns() + candidateTypes.getRuns()));
+
+    spilledTypes.delete();
+    candidateTypes.delete();
+    assertThat(directory.list().length, is(0));
+  }
+
+  private static List<String> typesOf(String prefix, int count) {
+    final List<String> types = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      types.add(String.format("%s%03d", prefix, i));
+    }
+    return types;
+  }
+
+  private static SpilledTypes inMemory(File directory, String... types) {
+    return inMemory(directory, Arrays.asList(types));
+  }
+
+  private static SpilledTypes inMemory(File directory, Collection<String> types) {
+    final SpilledTypes spilledTypes = new SpilledTypes(directory, Long.MAX_VALUE, new LogStub());
+    spilledTypes.addAll(types);
+    return spilledTypes;
+  }
+}
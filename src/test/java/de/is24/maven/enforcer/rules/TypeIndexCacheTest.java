@@ -0,0 +1,133 @@
+package de.is24.maven.enforcer.rules;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.testing.stubs.ArtifactStub;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+
+public class TypeIndexCacheTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void storedIndexIsLoaded() throws IOException {
+    final LogStub logger = new LogStub();
+    final TypeIndexCache typeIndexCache = new TypeIndexCache(folder.newFolder("cache"), Long.MAX_VALUE, logger);
+    final String key = makeKey("artifact.jar");
+
+    final Repository repository = makeRepository(logger, "a.b.C", "a.b.C$D", "a.b.Cd", "a.e.F", "ä.ö.Ü");
+    repository.addDependency("a.b.C");
+    repository.addDependency("x.y.Z");
+    typeIndexCache.store(key, repository);
+
+    final Repository loadedRepository = new Repository(new ClassFilter(logger, false));
+    assertThat(typeIndexCache.load(key, loadedRepository), is(true));
+    assertThat(loadedRepository.getTypes(), is(repository.getTypes()));
+    assertThat(loadedRepository.getDependencies(), is(repository.getDependencies()));
+  }
+
+  @Test
+  public void indexOfChangedArtifactIsNotLoaded() throws IOException {
+    final LogStub logger = new LogStub();
+    final TypeIndexCache typeIndexCache = new TypeIndexCache(folder.newFolder("cache"), Long.MAX_VALUE, logger);
+    final File jar = folder.newFile("artifact.jar");
+    final String key = TypeIndexCache.makeKey(makeArtifact(jar), jar, "types");
+
+    typeIndexCache.store(key, makeRepository(logger, "a.b.C"));
+
+    writeBytes(jar, 42);
+    final String changedKey = TypeIndexCache.makeKey(makeArtifact(jar), jar, "types");
+
+    final Repository loadedRepository = new Repository(new ClassFilter(logger, false));
+    assertThat(typeIndexCache.load(changedKey, loadedRepository), is(false));
+    assertThat(loadedRepository.getTypes().isEmpty(), is(true));
+  }
+
+  @Test
+  public void corruptIndexIsIgnored() throws IOException {
+    final LogStub logger = new LogStub();
+    final File cacheDirectory = folder.newFolder("cache");
+    final TypeIndexCache typeIndexCache = new TypeIndexCache(cacheDirectory, Long.MAX_VALUE, logger);
+    final String key = makeKey("artifact.jar");
+
+    typeIndexCache.store(key, makeRepository(logger, "a.b.C", "a.b.D"));
+    final File indexFile = cacheDirectory.listFiles()[0];
+    final byte[] index = Files.readAllBytes(indexFile.toPath());
+    Files.write(indexFile.toPath(), Arrays.copyOf(index, index.length - 2));
+
+    final Repository loadedRepository = new Repository(new ClassFilter(logger, false));
+    assertThat(typeIndexCache.load(key, loadedRepository), is(false));
+    assertThat(loadedRepository.getTypes().isEmpty(), is(true));
+    assertThat(logger.getWarnLog(), containsString("ignore it."));
+  }
+
+  @Test
+  public void leastRecentlyUsedIndexesAreEvicted() throws IOException {
+    final LogStub logger = new LogStub();
+    final File cacheDirectory = folder.newFolder("cache");
+    final TypeIndexCache unboundedCache = new TypeIndexCache(cacheDirectory, Long.MAX_VALUE, logger);
+    final String firstKey = makeKey("first.jar");
+    final String secondKey = makeKey("second.jar");
+    final String thirdKey = makeKey("third.jar");
+
+    unboundedCache.store(firstKey, makeRepository(logger, "a.b.C", "a.b.D"));
+    unboundedCache.store(secondKey, makeRepository(logger, "a.b.C", "a.b.D"));
+    for (File indexFile : cacheDirectory.listFiles()) {
+      assertThat(indexFile.setLastModified(System.currentTimeMillis() - 60000L), is(true));
+    }
+    unboundedCache.store(thirdKey, makeRepository(logger, "a.b.C", "a.b.D"));
+
+    // use the first index, the second one is the least recently used one now
+    assertThat(unboundedCache.load(firstKey, makeRepository(logger)), is(true));
+
+    final long indexFileSize = cacheDirectory.listFiles()[0].length();
+    final TypeIndexCache boundedCache = new TypeIndexCache(cacheDirectory, 2 * indexFileSize, logger);
+    boundedCache.evictLeastRecentlyUsed();
+
+    assertThat(cacheDirectory.listFiles().length, is(2));
+    assertThat(boundedCache.load(firstKey, makeRepository(logger)), is(true));
+    assertThat(boundedCache.load(secondKey, makeRepository(logger)), is(false));
+    assertThat(boundedCache.load(thirdKey, makeRepository(logger)), is(true));
+    assertThat(logger.getDebugLog(), containsString("Evicted least recently used type index"));
+  }
+
+  private Repository makeRepository(LogStub logger, String... types) {
+    final Repository repository = new Repository(new ClassFilter(logger, false));
+    for (String type : types) {
+      repository.addType(type);
+    }
+    return repository;
+  }
+
+  private String makeKey(String fileName) throws IOException {
+    final File jar = folder.newFile(fileName);
+    return TypeIndexCache.makeKey(makeArtifact(jar), jar, "types");
+  }
+
+  private void writeBytes(File file, int length) throws IOException {
+    try(FileOutputStream out = new FileOutputStream(file)) {
+      out.write(new byte[length]);
+    }
+  }
+
+  private Artifact makeArtifact(File file) {
+    final Artifact artifact = new ArtifactStub();
+    artifact.setArtifactId(file.getName());
+    artifact.setGroupId("groupId");
+    artifact.setVersion("1.0");
+    artifact.setFile(file);
+    return artifact;
+  }
+}
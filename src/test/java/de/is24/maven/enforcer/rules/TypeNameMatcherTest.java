@@ -0,0 +1,63 @@
+package de.is24.maven.enforcer.rules;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+
+public class TypeNameMatcherTest {
+  private static final String[] REGEXES = {
+    "de\\.is24\\.suppress.*", ".*SuppressMe.*", "com\\.example\\..+", "org\\.exact\\.Type",
+    "org\\.exact\\.Type\\$Inner", "net\\.(foo|bar)\\..*", "a.b", "x\\.y\\..*\\.internal\\..*", "[a-c]\\.Z"
+  };
+
+  private static final String[] TYPES = {
+    "de.is24.suppress", "de.is24.suppress.Type", "de.is24.suppressed.Type", "de.is24.Suppress.Type", "de.is24",
+    "de.is24.SuppressMe", "SuppressMe", "my.SuppressMe$Inner", "com.example", "com.example.", "com.example.Type",
+    "com.examples.Type", "org.exact.Type", "org.exact.Type$Inner", "org.exact.TypeX", "org.exact.Typ",
+    "net.foo.Type", "net.baz.Type", "a.b", "axb", "a.bc", "x.y.z.internal.Type", "x.y.Type", "b.Z", "d.Z",
+    "java.lang.Object", "java.util.Map$Entry", "java", "javax.sql.DataSource", "com.example.line\nbreak",
+    "java.lang.Ünicode", "int", "integer", "void", "123", "$1", "de.is24.Type", ""
+  };
+
+  @Test
+  public void matchesLikeCombinedPattern() {
+    final StringBuilder combinedRegex = new StringBuilder("[0-9\\$]+|" +
+      "(boolean)|(byte)|(char)|(short)|(int)|(long)|(float)|(double)|(void)|(java\\.[\\w\\.\\$]*)");
+    for (String regex : REGEXES) {
+      combinedRegex.append("|(").append(regex).append(")");
+    }
+    final Pattern combinedPattern = Pattern.compile(combinedRegex.toString());
+
+    final LogStub logger = new LogStub();
+    final ClassFilter filter = new ClassFilter(logger, false, REGEXES);
+    for (String type : TYPES) {
+      assertThat(type, filter.isConsideredType(type), is(!combinedPattern.matcher(type).matches()));
+    }
+  }
+
+  @Test
+  public void onlyTrueRegexesFallBackToPattern() {
+    final TypeNameMatcher matcher = new TypeNameMatcher(REGEXES);
+
+    assertThat(matcher.getTrieEntries(), is(4));
+    assertThat(matcher.getFallbackRegex(),
+      is("(.*SuppressMe.*)|(net\\.(foo|bar)\\..*)|(a.b)|(x\\.y\\..*\\.internal\\..*)|([a-c]\\.Z)"));
+  }
+
+  @Test
+  public void literalsAndPrefixesNeedNoPattern() {
+    final TypeNameMatcher matcher = new TypeNameMatcher("de\\.is24\\..*", "org\\.Type\\$1").withPrefix("java.");
+
+    assertThat(matcher.getFallbackRegex(), nullValue());
+    assertThat(matcher.matches("de.is24.Type"), is(true));
+    assertThat(matcher.matches("de.is25.Type"), is(false));
+    assertThat(matcher.matches("org.Type$1"), is(true));
+    assertThat(matcher.matches("org.Type$2"), is(false));
+    assertThat(matcher.matches("java.lang.String"), is(true));
+  }
+}
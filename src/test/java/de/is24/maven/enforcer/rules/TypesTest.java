@@ -45,4 +45,55 @@ public class TypesTest {
     final int[][] intIntArray = new int[0][0];
     assertThat(Types.readInternalTypeName(intIntArray.getClass().getName()), is("int"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testTypeNameCacheReadsSameNames() {
+    final TypeNameCache typeNames = new TypeNameCache();
+    final String[] descriptions = {"Z", "C", "B", "S", "I", "F", "J", "D", "V", "[I", "[[J", "Ljava/lang/String;",
+      "[Ljava/util/Map$Entry;", "[[Lde/is24/Type;", "La;"};
+    final String[] internalNames = {"java/lang/String", "java/util/Map$Entry", "a", "int", "[I", "[[Ljava/lang/Object;",
+      "de/is24/maven/enforcer/rules/TypesTest"};
+
+    // read everything twice, the second time from the cache
+    for (int i = 0; i < 2; i++) {
+      for (String description : descriptions) {
+        assertThat(typeNames.readTypeDescription(description), is(Types.readTypeDescription(description)));
+      }
+      for (String internalName : internalNames) {
+        assertThat(typeNames.readInternalTypeName(internalName), is(Types.readInternalTypeName(internalName)));
+      }
+    }
+
+    assertThat(typeNames.readInternalTypeName("java/lang/String") == typeNames.readInternalTypeName(
+      "Ljava/util/Map<Ljava/lang/String;>;", 16, 32), is(true));
+  }
+
+  @Test
+  public void testTypeNameCacheWalksMethodDescription() {
+    final TypeNameCache typeNames = new TypeNameCache();
+    final String description = "(I[[Ljava/lang/String;J[ZLa/B;)[La/C;";
+    final Type[] argumentTypes = Type.getArgumentTypes(description);
+
+    int index = 1;
+    for (Type argumentType : argumentTypes) {
+      assertThat(typeNames.readDescriptionType(description, index), is(Types.readType(argumentType)));
+      index = TypeNameCache.skipDescriptionType(description, index);
+    }
+
+    assertThat(description.charAt(index), is(')'));
+    assertThat(typeNames.readDescriptionType(description, index + 1),
+      is(Types.readType(Type.getReturnType(description))));
+    assertThat(TypeNameCache.skipDescriptionType(description, index + 1), is(description.length()));
+  }
+
+  @Test
+  public void testTypeNameCacheGrows() {
+    final TypeNameCache typeNames = new TypeNameCache();
+    for (int i = 0; i < 5000; i++) {
+      assertThat(typeNames.readInternalTypeName("a/b/Type" + i), is("a.b.Type" + i));
+    }
+    for (int i = 0; i < 5000; i++) {
+      assertThat(typeNames.readTypeDescription("La/b/Type" + i + ";"), is("a.b.Type" + i));
+    }
+  }
+}